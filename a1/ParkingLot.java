@@ -1,21 +1,9 @@
-import java.io.File;
 import java.util.Scanner;
 
 /**
  * @author Mehrdad Sabetzadeh, University of Ottawa
  */
 public class ParkingLot {
-	/**
-	 * The delimiter that separates values
-	 */
-	private static final String SEPARATOR = ",";
-
-	/**
-	 * The delimiter that separates the parking lot design section from the parked
-	 * car data section
-	 */
-	private static final String SECTIONER = "###";
-
 	/**
 	 * Instance variable for storing the number of rows in a parking lot
 	 */
@@ -49,21 +37,25 @@ public class ParkingLot {
 			return;
 		}
 
-		// determine numRows and numSpotsPerRow; you can do so by
-		// writing your own code or alternatively completing the
-		// private calculateLotDimensions(...) that I have provided
-		calculateLotDimensions(strFilename);
+		// read the lot design and the parked cars in one pass over the file
+		var file = LotFileParser.parse(strFilename);
 
-		// instantiate the lotDesign and occupancy variables!
-		// WRITE YOUR CODE HERE!
-
-		this.lotDesign = new CarType[this.numRows][this.numSpotsPerRow];
+		this.numRows = file.getNumRows();
+		this.numSpotsPerRow = file.getNumSpotsPerRow();
+		this.lotDesign = file.getDesign();
 		this.occupancy = new Car[this.numRows][this.numSpotsPerRow];
 
-		// populate lotDesign and occupancy; you can do so by
-		// writing your own code or alternatively completing the
-		// private populateFromFile(...) that I have provided
-		populateFromFile(strFilename);
+		for (int k = 0; k < file.getNumCars(); k++) {
+			Car c = new Car(file.getCarType(k), file.getCarPlate(k));
+			int i = file.getCarRow(k);
+			int j = file.getCarSpot(k);
+
+			if (canParkAt(i, j, c))
+				park(i, j, c);
+			else
+				System.out.println("Car " + Util.getLabelByCarType(c.getType()) + "(" + c.getPlateNum()
+						+ ") cannot be parked at (" + i + "," + j + ")");
+		}
 	}
 
 	/**
@@ -145,78 +137,6 @@ public class ParkingLot {
 		return count;
 	}
 
-	private void calculateLotDimensions(String strFilename) throws Exception {
-
-		Scanner scanner = new Scanner(new File(strFilename));
-		String wholeString = "";
-
-		while (scanner.hasNext()) {
-			String str = scanner.nextLine();
-
-			if (str.equals(this.SECTIONER))
-				break;
-
-			if (!str.trim().isEmpty())
-				wholeString += str + "\n";
-		}
-
-		scanner.close();
-
-		this.numRows = wholeString.split("\n").length;
-		this.numSpotsPerRow = wholeString.split("\n")[0].split(this.SEPARATOR).length;
-	}
-
-	private void populateFromFile(String strFilename) throws Exception {
-
-		Scanner scanner = new Scanner(new File(strFilename));
-
-		String[] spotRows = new String[this.numRows];
-		int index = 0;
-
-		while (scanner.hasNext()) {
-			String str = scanner.nextLine();
-
-			if (str.equals(this.SECTIONER))
-				break;
-
-			if (!str.trim().isEmpty())
-				spotRows[index++] = str;
-		}
-
-		for (int i = 0; i < spotRows.length; i++) {
-			String[] carTypes = spotRows[i].split(this.SEPARATOR);
-			for (int j = 0; j < carTypes.length; j++)
-				this.lotDesign[i][j] = Util.getCarTypeByLabel(carTypes[j].trim());
-		}
-
-		String cars = "";
-		while (scanner.hasNext()) {
-			String str = scanner.nextLine();
-			if (!str.trim().isEmpty())
-				cars += str + "\n";
-		}
-
-		String[][] carsArray = new String[cars.split("\n").length][cars.split("\n")[0].split(this.SEPARATOR).length];
-
-		for (int i = 0; i < carsArray.length; i++)
-			for (int j = 0; j < carsArray[0].length; j++)
-				carsArray[i][j] = cars.split("\n")[i].split(this.SEPARATOR)[j].trim();
-
-		for (var car : carsArray) {
-			Car c = new Car(Util.getCarTypeByLabel(car[2]), car[3]);
-			int i = Integer.parseInt(car[0]);
-			int j = Integer.parseInt(car[1]);
-
-			if (canParkAt(i, j, c))
-				park(i, j, c);
-			else
-				System.out.println("Car " + Util.getLabelByCarType(c.getType()) + "(" + c.getPlateNum()
-						+ ") cannot be parked at (" + i + "," + j + ")");
-
-		}
-		scanner.close();
-	}
-
 	private boolean canBeParked(String parkType, String carType) {
 
 		if (parkType.equalsIgnoreCase(Util.getLabelByCarType(CarType.NA)))
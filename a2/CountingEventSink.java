@@ -0,0 +1,40 @@
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * An event sink that only counts events. It can be shared by simulations that
+ * run concurrently.
+ */
+public class CountingEventSink implements EventSink {
+
+	private LongAdder entered = new LongAdder();
+	private LongAdder exited = new LongAdder();
+
+	public void carEntered(Car car, int timestamp, int occupancy) {
+		entered.increment();
+	}
+
+	public void carExited(Car car, int timestamp, int occupancy) {
+		exited.increment();
+	}
+
+	/**
+	 * @return the number of cars that entered the lot so far
+	 */
+	public long getEntered() {
+		return entered.sum();
+	}
+
+	/**
+	 * @return the number of cars that left the lot so far
+	 */
+	public long getExited() {
+		return exited.sum();
+	}
+
+	/**
+	 * Returns a string representation of the counts
+	 */
+	public String toString() {
+		return "Entered: " + getEntered() + ", exited: " + getExited();
+	}
+}
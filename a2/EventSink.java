@@ -0,0 +1,21 @@
+/**
+ * Receives the events of a simulation. The simulator passes raw values only;
+ * turning them into text, if at all, is up to the sink, so that nothing is
+ * formatted when events are not logged.
+ */
+public interface EventSink {
+
+	/**
+	 * @param car       is the car that entered the lot
+	 * @param timestamp is the (simulated) time of the event
+	 * @param occupancy is the number of cars in the lot after the event
+	 */
+	void carEntered(Car car, int timestamp, int occupancy);
+
+	/**
+	 * @param car       is the car that left the lot
+	 * @param timestamp is the (simulated) time of the event
+	 * @param occupancy is the number of cars in the lot after the event
+	 */
+	void carExited(Car car, int timestamp, int occupancy);
+}
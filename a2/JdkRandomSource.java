@@ -0,0 +1,41 @@
+import java.util.Random;
+
+/**
+ * A random source backed by an instance of java.util.Random. It is slower than
+ * the other sources, since Random updates its seed atomically, but it can be
+ * shared between threads; RandomGenerator uses one as its default source.
+ */
+public class JdkRandomSource implements RandomSource {
+
+	private Random random;
+
+	/**
+	 * @param random is the instance of Random to draw from
+	 */
+	public JdkRandomSource(Random random) {
+		if (random == null)
+			throw new NullPointerException("Random cannot be null");
+
+		this.random = random;
+	}
+
+	public int nextInt() {
+		return random.nextInt();
+	}
+
+	public int nextInt(int bound) {
+		return random.nextInt(bound);
+	}
+
+	public long nextLong() {
+		return random.nextLong();
+	}
+
+	public double nextDouble() {
+		return random.nextDouble();
+	}
+
+	public RandomSource split() {
+		return new JdkRandomSource(new Random(random.nextLong()));
+	}
+}
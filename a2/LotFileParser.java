@@ -0,0 +1,378 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Reads a lot design file in a single pass. The file holds one line per row of
+ * the lot, with the labels of the spots of the row separated by commas (see
+ * Util.getCarTypeByLabel()). It may go on with a line "###" followed by one
+ * line per parked car: "i, j, label, plate", where (i, j) is the spot of the
+ * car and label its type. Blank lines are skipped, and so is white space
+ * (including the '\r' of Windows line ends) around lines and values.
+ *
+ * The file is read through a channel into a fixed buffer and parsed byte by
+ * byte, without a Scanner or a String per line: the rows of the design and
+ * the cars are stored as they are read, in arrays that grow as needed, so the
+ * dimensions of the lot need not be known beforehand. Rows may be of different
+ * lengths; the lot is as wide as its longest row and the missing spots of the
+ * shorter rows are null.
+ */
+public class LotFileParser {
+
+	/**
+	 * The delimiter that separates values
+	 */
+	private static final byte SEPARATOR = ',';
+
+	/**
+	 * The line that separates the lot design section from the parked car section
+	 */
+	private static final String SECTIONER = "###";
+
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	private static final int FIELDS_PER_CAR = 4;
+
+	private String filename;
+	private int lineNumber;
+
+	/**
+	 * Bytes of the current line, and their number
+	 */
+	private byte[] line;
+	private int lineLength;
+
+	private boolean inCarSection;
+
+	private CarType[][] rows;
+	private int numRows;
+	private int numSpotsPerRow;
+
+	/**
+	 * Types of the spots of the current row
+	 */
+	private CarType[] rowTypes;
+
+	private int[] carRows;
+	private int[] carSpots;
+	private CarType[] carTypes;
+	private String[] carPlates;
+	private int numCars;
+
+	/**
+	 * Start and end (exclusive) of each field of the current car line
+	 */
+	private int[] fieldStarts;
+	private int[] fieldEnds;
+
+	private LotFileParser(String filename) {
+		this.filename = filename;
+		this.line = new byte[256];
+		this.rows = new CarType[16][];
+		this.rowTypes = new CarType[64];
+		this.carRows = new int[16];
+		this.carSpots = new int[16];
+		this.carTypes = new CarType[16];
+		this.carPlates = new String[16];
+		this.fieldStarts = new int[FIELDS_PER_CAR];
+		this.fieldEnds = new int[FIELDS_PER_CAR];
+	}
+
+	/**
+	 * Parses a lot design file
+	 *
+	 * @param filename is the name of the file
+	 * @return the parsed file
+	 * @throws IOException              if the file cannot be read
+	 * @throws IllegalArgumentException if the file is not a valid lot design,
+	 *                                  with the number of the offending line
+	 */
+	public static LotFileParser parse(String filename) throws IOException {
+		if (filename == null)
+			throw new NullPointerException("File name cannot be null");
+
+		var parser = new LotFileParser(filename);
+
+		try (var channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ)) {
+			var buffer = ByteBuffer.allocate(BUFFER_SIZE);
+			byte[] bytes = buffer.array();
+
+			while (channel.read(buffer) >= 0) {
+				int end = buffer.position();
+
+				for (int k = 0; k < end; k++) {
+					if (bytes[k] == '\n')
+						parser.endLine();
+					else
+						parser.append(bytes[k]);
+				}
+
+				buffer.clear();
+			}
+		}
+
+		// the last line need not end with a line break
+		if (parser.lineLength > 0)
+			parser.endLine();
+
+		if (parser.numRows == 0)
+			throw new IllegalArgumentException(filename + ": the lot design has no rows");
+
+		return parser;
+	}
+
+	/**
+	 * @return the number of rows of the lot
+	 */
+	public int getNumRows() {
+		return numRows;
+	}
+
+	/**
+	 * @return the number of spots in the longest row of the lot
+	 */
+	public int getNumSpotsPerRow() {
+		return numSpotsPerRow;
+	}
+
+	/**
+	 * @return the lot design, getNumRows() by getNumSpotsPerRow(); spots missing
+	 *         from short rows are null
+	 */
+	public CarType[][] getDesign() {
+		var design = new CarType[numRows][];
+
+		for (int i = 0; i < numRows; i++)
+			design[i] = rows[i].length == numSpotsPerRow ? rows[i] : Arrays.copyOf(rows[i], numSpotsPerRow);
+
+		return design;
+	}
+
+	/**
+	 * @return the number of cars in the parked car section, in the order of the
+	 *         file
+	 */
+	public int getNumCars() {
+		return numCars;
+	}
+
+	/**
+	 * @param k is the index of a car, between 0 and getNumCars() - 1
+	 * @return the row index of the spot of the car
+	 */
+	public int getCarRow(int k) {
+		checkCar(k);
+		return carRows[k];
+	}
+
+	/**
+	 * @param k is the index of a car, between 0 and getNumCars() - 1
+	 * @return the index of the spot of the car within its row
+	 */
+	public int getCarSpot(int k) {
+		checkCar(k);
+		return carSpots[k];
+	}
+
+	/**
+	 * @param k is the index of a car, between 0 and getNumCars() - 1
+	 * @return the type of the car
+	 */
+	public CarType getCarType(int k) {
+		checkCar(k);
+		return carTypes[k];
+	}
+
+	/**
+	 * @param k is the index of a car, between 0 and getNumCars() - 1
+	 * @return the plate number of the car
+	 */
+	public String getCarPlate(int k) {
+		checkCar(k);
+		return carPlates[k];
+	}
+
+	private void checkCar(int k) {
+		if (k < 0 || k >= numCars)
+			throw new IndexOutOfBoundsException("Car " + k + " out of " + numCars);
+	}
+
+	private void append(byte b) {
+		if (lineLength == line.length)
+			line = Arrays.copyOf(line, 2 * line.length);
+
+		line[lineLength++] = b;
+	}
+
+	private void endLine() {
+		lineNumber++;
+
+		int start = skipBlanks(0, lineLength);
+		int end = trimBlanks(start, lineLength);
+		lineLength = 0;
+
+		if (start == end)
+			return;
+
+		if (isSectioner(start, end)) {
+			if (inCarSection)
+				throw error("a second \"" + SECTIONER + "\" line");
+
+			inCarSection = true;
+			return;
+		}
+
+		if (inCarSection)
+			parseCar(start, end);
+		else
+			parseRow(start, end);
+	}
+
+	private void parseRow(int start, int end) {
+		int numSpots = 0;
+
+		// like String.split(), trailing empty values do not count
+		int lastNonEmpty = 0;
+
+		for (int from = start; from <= end;) {
+			int to = nextSeparator(from, end);
+
+			if (numSpots == rowTypes.length)
+				rowTypes = Arrays.copyOf(rowTypes, 2 * rowTypes.length);
+
+			int valueStart = skipBlanks(from, to);
+			int valueEnd = trimBlanks(valueStart, to);
+			rowTypes[numSpots++] = typeOf(valueStart, valueEnd);
+
+			if (valueStart < valueEnd)
+				lastNonEmpty = numSpots;
+
+			from = to + 1;
+		}
+
+		if (numRows == rows.length)
+			rows = Arrays.copyOf(rows, 2 * rows.length);
+
+		rows[numRows++] = Arrays.copyOf(rowTypes, lastNonEmpty);
+		numSpotsPerRow = Math.max(numSpotsPerRow, lastNonEmpty);
+	}
+
+	private void parseCar(int start, int end) {
+		int numFields = 0;
+
+		for (int from = start; from <= end;) {
+			int to = nextSeparator(from, end);
+
+			if (numFields == FIELDS_PER_CAR)
+				throw error("a parked car needs " + FIELDS_PER_CAR + " values (row, spot, type, plate)");
+
+			fieldStarts[numFields] = skipBlanks(from, to);
+			fieldEnds[numFields] = trimBlanks(fieldStarts[numFields], to);
+			numFields++;
+
+			from = to + 1;
+		}
+
+		if (numFields < FIELDS_PER_CAR)
+			throw error("a parked car needs " + FIELDS_PER_CAR + " values (row, spot, type, plate)");
+
+		if (numCars == carRows.length) {
+			carRows = Arrays.copyOf(carRows, 2 * numCars);
+			carSpots = Arrays.copyOf(carSpots, 2 * numCars);
+			carTypes = Arrays.copyOf(carTypes, 2 * numCars);
+			carPlates = Arrays.copyOf(carPlates, 2 * numCars);
+		}
+
+		carRows[numCars] = parseIndex(fieldStarts[0], fieldEnds[0]);
+		carSpots[numCars] = parseIndex(fieldStarts[1], fieldEnds[1]);
+		carTypes[numCars] = typeOf(fieldStarts[2], fieldEnds[2]);
+		carPlates[numCars] = new String(line, fieldStarts[3], fieldEnds[3] - fieldStarts[3],
+				StandardCharsets.ISO_8859_1);
+		numCars++;
+	}
+
+	/**
+	 * @return the type whose label is the value between start and end, or
+	 *         CarType.NA if there is none (see Util.getCarTypeByLabel())
+	 */
+	private CarType typeOf(int start, int end) {
+		if (end - start != 1)
+			return CarType.NA;
+
+		switch (line[start]) {
+		case 'E':
+			return CarType.ELECTRIC;
+		case 'S':
+			return CarType.SMALL;
+		case 'R':
+			return CarType.REGULAR;
+		case 'L':
+			return CarType.LARGE;
+		default:
+			return CarType.NA;
+		}
+	}
+
+	private int parseIndex(int start, int end) {
+		if (start == end)
+			throw error("missing row or spot index");
+
+		int value = 0;
+
+		for (int k = start; k < end; k++) {
+			int digit = line[k] - '0';
+
+			if (digit < 0 || digit > 9 || value > (Integer.MAX_VALUE - digit) / 10)
+				throw error("not a non-negative integer index: \""
+						+ new String(line, start, end - start, StandardCharsets.ISO_8859_1) + "\"");
+
+			value = 10 * value + digit;
+		}
+
+		return value;
+	}
+
+	private boolean isSectioner(int start, int end) {
+		if (end - start != SECTIONER.length())
+			return false;
+
+		for (int k = 0; k < SECTIONER.length(); k++)
+			if (line[start + k] != SECTIONER.charAt(k))
+				return false;
+
+		return true;
+	}
+
+	/**
+	 * @return the position of the first separator from from, or end if there is
+	 *         none
+	 */
+	private int nextSeparator(int from, int end) {
+		while (from < end && line[from] != SEPARATOR)
+			from++;
+
+		return from;
+	}
+
+	private int skipBlanks(int from, int end) {
+		while (from < end && (line[from] & 0xFF) <= ' ')
+			from++;
+
+		return from;
+	}
+
+	private int trimBlanks(int start, int end) {
+		while (end > start && (line[end - 1] & 0xFF) <= ' ')
+			end--;
+
+		return end;
+	}
+
+	private IllegalArgumentException error(String message) {
+		return new IllegalArgumentException(filename + ":" + lineNumber + ": " + message);
+	}
+}
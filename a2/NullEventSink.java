@@ -0,0 +1,11 @@
+/**
+ * An event sink that ignores all events.
+ */
+public class NullEventSink implements EventSink {
+
+	public void carEntered(Car car, int timestamp, int occupancy) {
+	}
+
+	public void carExited(Car car, int timestamp, int occupancy) {
+	}
+}
@@ -0,0 +1,138 @@
+/**
+ * The cars parked in a lot, stored as parallel arrays: entry k of each array
+ * describes the car at position k. Positions are dense (0 to size() - 1);
+ * removing a car moves the last car into the freed position, so that a
+ * departure sweep visits only the occupied spots and reads their parking
+ * times from one contiguous int[].
+ *
+ * Spots of the lot are identified by their index i * numSpotsPerRow + j; the
+ * position of the car parked in a given spot is looked up in constant time.
+ */
+public class ParkedCars {
+
+	/**
+	 * The (simulated) time at which each car parked
+	 */
+	private int[] timestamps;
+
+	/**
+	 * The index of the spot of the lot in which each car is parked
+	 */
+	private int[] spotIndices;
+
+	/**
+	 * The spot object of each car, for callers that ask for it
+	 */
+	private Spot[] spots;
+
+	/**
+	 * positions[index] is the position of the car parked in the spot with the
+	 * given index, or -1 if the spot is unoccupied
+	 */
+	private int[] positions;
+
+	private int size;
+
+	/**
+	 * @param numSpots is the number of spots in the lot (including the spots in
+	 *                 which no car can park)
+	 */
+	public ParkedCars(int numSpots) {
+		timestamps = new int[numSpots];
+		spotIndices = new int[numSpots];
+		spots = new Spot[numSpots];
+
+		positions = new int[numSpots];
+		for (int index = 0; index < numSpots; index++)
+			positions[index] = -1;
+
+		size = 0;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * @param index is the index of a spot of the lot
+	 * @return true if a car is parked in the spot
+	 */
+	public boolean isOccupied(int index) {
+		return positions[index] >= 0;
+	}
+
+	/**
+	 * Parks a car in an unoccupied spot of the lot
+	 * 
+	 * @param index     is the index of the spot of the lot
+	 * @param spot      is the spot of the car
+	 * @param timestamp is the (simulated) time at which the car parked
+	 */
+	public void add(int index, Spot spot, int timestamp) {
+
+		if (spot == null)
+			throw new NullPointerException("Spot object cannot be null");
+
+		if (isOccupied(index))
+			throw new IllegalStateException("Spot " + index + " is already occupied");
+
+		timestamps[size] = timestamp;
+		spotIndices[size] = index;
+		spots[size] = spot;
+		positions[index] = size;
+		size++;
+	}
+
+	/**
+	 * Removes the car at a given position; the last car takes that position
+	 * 
+	 * @param k is the position of the car
+	 * @return the spot of the removed car
+	 */
+	public Spot remove(int k) {
+		checkPosition(k);
+
+		Spot removed = spots[k];
+		positions[spotIndices[k]] = -1;
+		size--;
+
+		if (k < size) {
+			timestamps[k] = timestamps[size];
+			spotIndices[k] = spotIndices[size];
+			spots[k] = spots[size];
+			positions[spotIndices[k]] = k;
+		}
+		spots[size] = null;
+
+		return removed;
+	}
+
+	/**
+	 * @param index is the index of a spot of the lot
+	 * @return the position of the car parked in the spot, or -1 if the spot is
+	 *         unoccupied
+	 */
+	public int positionOf(int index) {
+		return positions[index];
+	}
+
+	public int getTimestamp(int k) {
+		checkPosition(k);
+		return timestamps[k];
+	}
+
+	public int getSpotIndex(int k) {
+		checkPosition(k);
+		return spotIndices[k];
+	}
+
+	public Spot getSpot(int k) {
+		checkPosition(k);
+		return spots[k];
+	}
+
+	private void checkPosition(int k) {
+		if (k < 0 || k >= size)
+			throw new IndexOutOfBoundsException(Integer.toString(k));
+	}
+}
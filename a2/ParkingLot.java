@@ -1,15 +1,9 @@
-import java.io.File;
-import java.util.Scanner;
+import java.util.BitSet;
 
 /**
  * @author Mehrdad Sabetzadeh, University of Ottawa
  */
 public class ParkingLot {
-	/**
-	 * The delimiter that separates values
-	 */
-	private static final String SEPARATOR = ",";
-
 	/**
 	 * Instance variable for storing the number of rows in a parking lot
 	 */
@@ -26,13 +20,32 @@ public class ParkingLot {
 	private CarType[][] lotDesign;
 
 	/**
-	 * Instance variable (two-dimensional array) for storing occupancy information
-	 * for the spots in the lot
+	 * Instance variable for storing occupancy information for the spots in the
+	 * lot, as parallel arrays of the parked cars indexed by position (see
+	 * getParkedTimestamp()); spot (i, j) has index i * numSpotsPerRow + j
+	 */
+	private ParkedCars occupancy;
+
+	/**
+	 * Index of the free spots in the lot, per spot type: bit (i * numSpotsPerRow +
+	 * j) of freeSpots[t.ordinal()] is set if spot (i, j) has type t and is
+	 * unoccupied. Maintained by park() and remove().
+	 */
+	private BitSet[] freeSpots;
+
+	/**
+	 * Number of free spots in the lot, per spot type (indexed by ordinal)
 	 */
-	private Spot[][] occupancy;
+	private int[] numFreeSpots;
 
 	/**
-	 * Constructs a parking lot by loading a file
+	 * Number of cars parked in the lot
+	 */
+	private int totalOccupancy;
+
+	/**
+	 * Constructs a parking lot by loading a file (see LotFileParser). The cars of
+	 * the parked car section, if any, are parked at time 0.
 	 * 
 	 * @param strFilename is the name of the file
 	 */
@@ -42,12 +55,17 @@ public class ParkingLot {
 			return;
 		}
 
-		calculateLotDimensions(strFilename);
+		var file = LotFileParser.parse(strFilename);
+
+		numRows = file.getNumRows();
+		numSpotsPerRow = file.getNumSpotsPerRow();
+		lotDesign = file.getDesign();
+		occupancy = new ParkedCars(numRows * numSpotsPerRow);
 
-		lotDesign = new CarType[numRows][numSpotsPerRow];
-		occupancy = new Spot[numRows][numSpotsPerRow];
+		indexFreeSpots();
 
-		populateDesignFromFile(strFilename);
+		for (int k = 0; k < file.getNumCars(); k++)
+			park(file.getCarRow(k), file.getCarSpot(k), new Car(file.getCarType(k), file.getCarPlate(k)), 0);
 	}
 
 	public int getNumRows() {
@@ -72,7 +90,12 @@ public class ParkingLot {
 			return;
 		}
 
-		occupancy[i][j] = new Spot(c, timestamp);
+		occupancy.add(i * numSpotsPerRow + j, new Spot(c, timestamp), timestamp);
+
+		int type = lotDesign[i][j].ordinal();
+		freeSpots[type].clear(i * numSpotsPerRow + j);
+		numFreeSpots[type]--;
+		totalOccupancy++;
 	}
 
 	/**
@@ -89,8 +112,42 @@ public class ParkingLot {
 			return null;
 		}
 
-		var spot = occupancy[i][j];
-		occupancy[i][j] = null;
+		int k = occupancy.positionOf(i * numSpotsPerRow + j);
+
+		if (k < 0)
+			return null;
+
+		return removeParked(k);
+	}
+
+	/**
+	 * Returns the time at which the car at a given position parked. The parked
+	 * cars are numbered densely, in no particular order, so a departure sweep can
+	 * go through positions 0 to getTotalOccupancy() - 1 without scanning empty
+	 * spots or touching spot objects.
+	 * 
+	 * @param k is the position of the car
+	 * @return the (simulated) time at which the car parked
+	 */
+	public int getParkedTimestamp(int k) {
+		return occupancy.getTimestamp(k);
+	}
+
+	/**
+	 * Removes the car at a given position. The car at the last position takes
+	 * position k.
+	 * 
+	 * @param k is the position of the car
+	 * @return the spot removed
+	 */
+	public Spot removeParked(int k) {
+		int index = occupancy.getSpotIndex(k);
+		var spot = occupancy.remove(k);
+
+		int type = lotDesign[index / numSpotsPerRow][index % numSpotsPerRow].ordinal();
+		freeSpots[type].set(index);
+		numFreeSpots[type]++;
+		totalOccupancy--;
 
 		return spot;
 	}
@@ -108,14 +165,14 @@ public class ParkingLot {
 			return null;
 		}
 
-		return occupancy[i][j];
+		int k = occupancy.positionOf(i * numSpotsPerRow + j);
+
+		return k < 0 ? null : occupancy.getSpot(k);
 	}
 
 	/**
 	 * Checks whether a car (which has a certain type) is allowed to park at
 	 * location (i, j)
-	 *
-	 * NOTE: This method is complete; you do not need to change it.
 	 * 
 	 * @param i is the parking row index
 	 * @param j is the index of the spot within row i
@@ -126,7 +183,7 @@ public class ParkingLot {
 		if (i >= numRows || j >= numSpotsPerRow)
 			return false;
 
-		if (occupancy[i][j] != null)
+		if (occupancy.isOccupied(i * numSpotsPerRow + j))
 			return false;
 
 		CarType carType = c.getType();
@@ -166,12 +223,15 @@ public class ParkingLot {
 	 *         otherwise
 	 */
 	public boolean attemptParking(Car c, int timestamp) {
-		for (int i = 0; i < numRows; i++)
-			for (int j = 0; j < numSpotsPerRow; j++)
-				if (canParkAt(i, j, c)) {
-					park(i, j, c, timestamp);
-					return true;
-				}
+		// CarType lists the car types from the smallest to the largest, and a car
+		// can park at any spot that is at least as large as the car itself; the
+		// first free spot of the smallest compatible type is used
+		for (int type = c.getType().ordinal(); type < CarType.NA.ordinal(); type++)
+			if (numFreeSpots[type] > 0) {
+				int index = freeSpots[type].nextSetBit(0);
+				park(index / numSpotsPerRow, index % numSpotsPerRow, c, timestamp);
+				return true;
+			}
 
 		return false;
 	}
@@ -195,54 +255,28 @@ public class ParkingLot {
 	 * @return the total occupancy of the parking lot
 	 */
 	public int getTotalOccupancy() {
-		int count = 0;
-
-		for (int i = 0; i < numRows; i++)
-			for (int j = 0; j < numSpotsPerRow; j++)
-				if (occupancy[i][j] != null)
-					count++;
-
-		return count;
+		return totalOccupancy;
 	}
 
-	private void calculateLotDimensions(String strFilename) throws Exception {
-		Scanner scanner = new Scanner(new File(strFilename));
+	private void indexFreeSpots() {
+		int numTypes = CarType.values().length;
 
-		while (scanner.hasNext()) {
-			String str = scanner.nextLine().trim();
+		freeSpots = new BitSet[numTypes];
+		numFreeSpots = new int[numTypes];
 
-			if (!str.isEmpty()) {
-				numRows++;
-				String[] tokens = str.split(SEPARATOR);
-				numSpotsPerRow = Integer.max(tokens.length, numSpotsPerRow);
-			}
-		}
-
-		scanner.close();
-	}
+		for (int type = 0; type < numTypes; type++)
+			freeSpots[type] = new BitSet(numRows * numSpotsPerRow);
 
-	private void populateDesignFromFile(String strFilename) throws Exception {
-		Scanner scanner = new Scanner(new File(strFilename));
-		int rowNumber = 0;
-
-		// while loop for reading the lot design
-		while (scanner.hasNext()) {
-			String str = scanner.nextLine().trim();
-
-			if (!str.isEmpty()) {
-				String[] tokens = str.split(SEPARATOR);
-				for (int i = 0; i < tokens.length; i++)
-					lotDesign[rowNumber][i] = Util.getCarTypeByLabel(tokens[i].trim());
-				rowNumber++;
-			}
-		}
-
-		scanner.close();
+		for (int i = 0; i < numRows; i++)
+			for (int j = 0; j < numSpotsPerRow; j++)
+				if (lotDesign[i][j] != null && lotDesign[i][j] != CarType.NA
+						&& !occupancy.isOccupied(i * numSpotsPerRow + j)) {
+					freeSpots[lotDesign[i][j].ordinal()].set(i * numSpotsPerRow + j);
+					numFreeSpots[lotDesign[i][j].ordinal()]++;
+				}
 	}
 
 	/**
-	 * NOTE: This method is complete; you do not need to change it.
-	 * 
 	 * @return String containing the parking lot information
 	 */
 	public String toString() {
@@ -262,10 +296,10 @@ public class ParkingLot {
 
 		buffer.append(System.lineSeparator()).append("==== Parking Occupancy ====").append(System.lineSeparator());
 
-		for (int i = 0; i < occupancy.length; i++) {
-			for (int j = 0; j < occupancy[0].length; j++) {
+		for (int i = 0; i < numRows; i++) {
+			for (int j = 0; j < numSpotsPerRow; j++) {
 				buffer.append(
-						"(" + i + ", " + j + "): " + ((occupancy[i][j] != null) ? occupancy[i][j] : "Unoccupied"));
+						"(" + i + ", " + j + "): " + ((getSpotAt(i, j) != null) ? getSpotAt(i, j) : "Unoccupied"));
 				buffer.append(System.lineSeparator());
 			}
 
@@ -1,11 +1,10 @@
 import java.util.Random;
 
 /**
- * @author Mehrdad Sabetzadeh, University of Ottawa
- * 
- *         The implementation of this class is complete. You do *not* need to
- *         change this class in this assignment.
+ * Random events, stay durations and cars for the simulation. Every method can
+ * draw either from a shared source or from a given RandomSource.
  * 
+ * @author Mehrdad Sabetzadeh, University of Ottawa
  */
 
 public class RandomGenerator {
@@ -17,10 +16,34 @@ public class RandomGenerator {
 			'P', 'Q', 'R', 'S', 'T', 'U', 'V', 'W', 'X', 'Y', 'Z', '0', '1', '2', '3', '4', '5', '6', '7', '8', '9' };
 
 	/**
-	 * Instance of Random class; all random quantities in this assignment will be
-	 * generated through this single instance of Random
+	 * Source shared by the methods that are not given a source explicitly. It is
+	 * backed by an instance of Random, so that it can be used from any thread;
+	 * simulations get their own, faster RandomSource instead.
 	 */
-	private static Random rand = new Random();
+	private static RandomSource rand = new JdkRandomSource(new Random());
+
+	/**
+	 * Fixed-point scale of event thresholds: the threshold of a probability p is
+	 * p * 2^32, so that a threshold can be compared with a uniformly distributed
+	 * unsigned 32-bit random number
+	 */
+	public static final long THRESHOLD_SCALE = 1L << 32;
+
+	/**
+	 * Converts a probability into a threshold for eventOccurred(long), so that a
+	 * probability that is used over and over can be converted once.
+	 * 
+	 * @param probability is the probability of the event of interest occurring
+	 *                    within a SINGLE simulated time unit
+	 * @return the threshold corresponding to the probability; probabilities that
+	 *         eventOccurred(Rational) never accepts map to 0
+	 */
+	public static long threshold(Rational probability) {
+		if (probability.numerator() <= 0 || probability.denominator() < probability.numerator())
+			return 0;
+
+		return ((long) probability.numerator() << 32) / probability.denominator();
+	}
 
 	/**
 	 * @param probability is the probability of the event of interest occurring
@@ -35,11 +58,25 @@ public class RandomGenerator {
 	 *         unit, false otherwise
 	 */
 	public static boolean eventOccurred(Rational probability) {
+		return eventOccurred(rand, probability);
+	}
+
+	/**
+	 * Same as eventOccurred(Rational), but draws from a given source rather than
+	 * from the shared one, so that a simulation can be reproduced from its seed.
+	 * 
+	 * @param random      is the source of randomness
+	 * @param probability is the probability of the event of interest occurring
+	 *                    within a SINGLE simulated time unit
+	 * @return true if the event of interest occurred within the current single time
+	 *         unit, false otherwise
+	 */
+	public static boolean eventOccurred(RandomSource random, Rational probability) {
 		if (probability.numerator() <= 0 || probability.denominator() < probability.numerator()) {
 			return false;
 		}
 
-		int number = rand.nextInt(probability.denominator());
+		int number = random.nextInt(probability.denominator());
 
 		if (number < probability.numerator())
 			return true;
@@ -48,16 +85,64 @@ public class RandomGenerator {
 
 	}
 
+	/**
+	 * Same as eventOccurred(Rational), but takes a precomputed threshold and
+	 * allocates nothing. The event occurs with probability threshold / 2^32.
+	 * 
+	 * @param threshold is the event threshold (see threshold(Rational))
+	 * @return true if the event of interest occurred within the current single time
+	 *         unit, false otherwise
+	 */
+	public static boolean eventOccurred(long threshold) {
+		return eventOccurred(rand, threshold);
+	}
+
+	/**
+	 * @param random    is the source of randomness
+	 * @param threshold is the event threshold (see threshold(Rational))
+	 * @return true if the event of interest occurred within the current single time
+	 *         unit, false otherwise
+	 */
+	public static boolean eventOccurred(RandomSource random, long threshold) {
+		return (random.nextInt() & 0xFFFFFFFFL) < threshold;
+	}
+
+	/**
+	 * @param distribution is the distribution to draw from
+	 * @return a value drawn from the distribution
+	 */
+	public static int sample(TriangularDistribution distribution) {
+		return sample(rand, distribution);
+	}
+
+	/**
+	 * @param random       is the source of randomness
+	 * @param distribution is the distribution to draw from
+	 * @return a value drawn from the distribution
+	 */
+	public static int sample(RandomSource random, TriangularDistribution distribution) {
+		return distribution.sample(random.nextDouble());
+	}
+
 	/**
 	 * @param length is the length of the random string to generate
 	 * @return a random string with the specified length
 	 */
 	public static String generateRandomString(int length) {
+		return generateRandomString(rand, length);
+	}
+
+	/**
+	 * @param random is the source of randomness
+	 * @param length is the length of the random string to generate
+	 * @return a random string with the specified length
+	 */
+	public static String generateRandomString(RandomSource random, int length) {
 
 		StringBuffer buffer = new StringBuffer();
 
 		for (int i = 0; i < length; i++) {
-			buffer.append(ALPHANUM[rand.nextInt(ALPHANUM.length)]);
+			buffer.append(ALPHANUM[random.nextInt(ALPHANUM.length)]);
 		}
 
 		return buffer.toString();
@@ -68,6 +153,15 @@ public class RandomGenerator {
 	 *         according to predefined proportions
 	 */
 	public static Car generateRandomCar() {
+		return generateRandomCar(rand);
+	}
+
+	/**
+	 * @param random is the source of randomness
+	 * @return An instance of Car with the car type decided probabilistically,
+	 *         according to predefined proportions
+	 */
+	public static Car generateRandomCar(RandomSource random) {
 		// Hard-coded:
 		// ELECTRIC (prob: 5%),
 		// SMALL (prob: 20%),
@@ -75,7 +169,7 @@ public class RandomGenerator {
 		// REGULAR (default).
 
 		CarType type;
-		int number = rand.nextInt(100);
+		int number = random.nextInt(100);
 
 		if (number < 5)
 			type = CarType.ELECTRIC;
@@ -86,6 +180,6 @@ public class RandomGenerator {
 		else
 			type = CarType.REGULAR;
 
-		return new Car(type, generateRandomString(3));
+		return new Car(type, generateRandomString(random, 3));
 	}
 }
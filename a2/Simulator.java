@@ -29,6 +29,11 @@ public class Simulator {
 	 */
 	private Rational probabilityOfArrivalPerSec;
 
+	/**
+	 * probabilityOfArrivalPerSec as a threshold for RandomGenerator.eventOccurred()
+	 */
+	private long arrivalThresholdPerSec;
+
 	/**
 	 * The simulation clock. Initially the clock should be set to zero; the clock
 	 * should then be incremented by one unit after each (simulated) second.
@@ -58,6 +63,16 @@ public class Simulator {
 	 */
 	private Queue<Spot> outgoingQueue;
 
+	/**
+	 * Source of all random quantities in this simulation
+	 */
+	private RandomSource random;
+
+	/**
+	 * Receives the ENTERED and EXITED events of the simulation
+	 */
+	private EventSink eventSink;
+
 	/**
 	 * @param lot                is the parking lot to be simulated
 	 * @param perHourArrivalRate is the HOURLY rate at which cars show up in front
@@ -65,9 +80,27 @@ public class Simulator {
 	 * @param steps              is the total number of steps for simulation
 	 */
 	public Simulator(ParkingLot lot, int perHourArrivalRate, int steps) {
+		this(lot, perHourArrivalRate, steps, new SplittableRandomSource());
+	}
+
+	/**
+	 * @param lot                is the parking lot to be simulated
+	 * @param perHourArrivalRate is the HOURLY rate at which cars show up in front
+	 *                           of the lot
+	 * @param steps              is the total number of steps for simulation
+	 * @param random             is the source of all random quantities in the
+	 *                           simulation; a simulator seeded with a given value
+	 *                           always produces the same run
+	 */
+	public Simulator(ParkingLot lot, int perHourArrivalRate, int steps, RandomSource random) {
+
+		if (random == null)
+			throw new NullPointerException("Random source cannot be null");
 
 		this.lot = lot;
 
+		this.random = random;
+
 		this.steps = steps;
 
 		this.clock = 0;
@@ -84,8 +117,24 @@ public class Simulator {
 		// Finally, you need to initialize the incoming and outgoing queues
 
 		this.probabilityOfArrivalPerSec = new Rational(perHourArrivalRate, 3600);
-		incomingQueue = new LinkedQueue<Spot>();
-		outgoingQueue = new LinkedQueue<Spot>();
+		this.arrivalThresholdPerSec = RandomGenerator.threshold(probabilityOfArrivalPerSec);
+		incomingQueue = new ArrayQueue<Spot>();
+		outgoingQueue = new ArrayQueue<Spot>();
+
+		eventSink = new NullEventSink();
+	}
+
+	/**
+	 * Sets the sink that receives the ENTERED and EXITED events of the simulation.
+	 * By default, events are ignored.
+	 * 
+	 * @param eventSink is the event sink
+	 */
+	public void setEventSink(EventSink eventSink) {
+		if (eventSink == null)
+			throw new NullPointerException("Event sink cannot be null");
+
+		this.eventSink = eventSink;
 	}
 
 	/**
@@ -104,41 +153,32 @@ public class Simulator {
 
 		while (clock < steps) {
 
-			if (RandomGenerator.eventOccurred(probabilityOfArrivalPerSec))
-				incomingQueue.enqueue(new Spot(RandomGenerator.generateRandomCar(), clock));
-
-			// for every spot at lot:
-			for (int i = 0; i < this.lot.getNumRows(); i++) {
-				for (int j = 0; j < this.lot.getNumSpotsPerRow(); j++) {
-					var spot = this.lot.getSpotAt(i, j);
-
-					if (spot != null) {
-						var duration = clock - spot.getTimestamp();
-						if (duration == MAX_PARKING_DURATION
-								|| RandomGenerator.eventOccurred(this.departurePDF.pdf(duration))) {
-							this.lot.remove(i, j);
-							this.outgoingQueue.enqueue(spot);
-						}
-					}
-				}
+			if (RandomGenerator.eventOccurred(random, arrivalThresholdPerSec))
+				incomingQueue.enqueue(new Spot(RandomGenerator.generateRandomCar(random), clock));
+
+			// for every car in the lot; removeParked(k) moves the last car to
+			// position k, which is then checked next
+			for (int k = 0; k < this.lot.getTotalOccupancy();) {
+				var duration = clock - this.lot.getParkedTimestamp(k);
+				if (duration == MAX_PARKING_DURATION
+						|| RandomGenerator.eventOccurred(random, departurePDF.pdfThreshold(duration)))
+					this.outgoingQueue.enqueue(this.lot.removeParked(k));
+				else
+					k++;
 			}
 
 			if (!incomingQueue.isEmpty() && awaitingCar == null)
 				awaitingCar = incomingQueue.dequeue();
 
 			if (awaitingCar != null && this.lot.attemptParking(awaitingCar.getCar(), clock)) {
-				System.out.println(
-						awaitingCar.getCar() + " ENTERED at timestep " + clock + "; occupancy is at "
-								+ lot.getTotalOccupancy());
+				eventSink.carEntered(awaitingCar.getCar(), clock, lot.getTotalOccupancy());
 				awaitingCar = null;
 			}
 
 			if (!this.outgoingQueue.isEmpty()) {
 				var dequedItem = this.outgoingQueue.dequeue();
 
-				System.out.println(
-						dequedItem.getCar() + " EXITED at timestep " + clock + "; occupancy is at "
-								+ lot.getTotalOccupancy());
+				eventSink.carExited(dequedItem.getCar(), clock, lot.getTotalOccupancy());
 			}
 
 			clock++;
@@ -160,7 +200,7 @@ public class Simulator {
 		StudentInfo.display();
 
 		if (args.length < 2) {
-			System.out.println("Usage: java Simulator <lot-design filename> <hourly rate of arrival>");
+			System.out.println("Usage: java Simulator <lot-design filename> <hourly rate of arrival> [seed]");
 			System.out.println("Example: java Simulator parking.inf 11");
 			return;
 		}
@@ -170,11 +210,25 @@ public class Simulator {
 			return;
 		}
 
+		if (args.length > 2 && !args[2].matches("-?\\d+")) {
+			System.out.println("The seed should be an integer!");
+			return;
+		}
+
 		ParkingLot lot = new ParkingLot(args[0]);
 
 		System.out.println("Total number of parkable spots (capacity): " + lot.getTotalCapacity());
 
-		Simulator sim = new Simulator(lot, Integer.parseInt(args[1]), SIMULATION_DURATION);
+		long seed = args.length > 2 ? Long.parseLong(args[2]) : new SplittableRandomSource().nextLong();
+		System.out.println("Random seed: " + seed);
+
+		Simulator sim = new Simulator(lot, Integer.parseInt(args[1]), SIMULATION_DURATION,
+				new SplittableRandomSource(seed));
+
+		// the trace is printed in full: the simulation waits for the console
+		// rather than dropping events
+		var eventSink = new AsyncEventSink(System.out, 1 << 16, true);
+		sim.setEventSink(eventSink);
 
 		long start, end;
 
@@ -182,6 +236,7 @@ public class Simulator {
 		start = System.currentTimeMillis();
 		sim.simulate();
 		end = System.currentTimeMillis();
+		eventSink.close();
 		System.out.println("=== SIMULATION END ===");
 
 		System.out.println();
@@ -0,0 +1,84 @@
+/**
+ * A random source implementing xoroshiro128++ (Blackman and Vigna), a small
+ * and fast generator with 128 bits of state and a period of 2^128 - 1. The
+ * state is initialized from the seed with SplitMix64, as recommended by the
+ * authors, so that similar seeds give unrelated streams.
+ */
+public class XoroshiroRandomSource implements RandomSource {
+
+	private long s0;
+	private long s1;
+
+	/**
+	 * Constructs a source with an unpredictable seed
+	 */
+	public XoroshiroRandomSource() {
+		this(System.nanoTime() ^ Thread.currentThread().getId() * 0x9E3779B97F4A7C15L);
+	}
+
+	/**
+	 * @param seed is the seed; sources with the same seed produce the same stream
+	 */
+	public XoroshiroRandomSource(long seed) {
+		long z = seed;
+		s0 = splitMix(z += 0x9E3779B97F4A7C15L);
+		s1 = splitMix(z += 0x9E3779B97F4A7C15L);
+
+		// the all-zero state is the one state the generator never leaves
+		if ((s0 | s1) == 0)
+			s1 = 1;
+	}
+
+	public long nextLong() {
+		long a = s0;
+		long b = s1;
+		long result = Long.rotateLeft(a + b, 17) + a;
+
+		b ^= a;
+		s0 = Long.rotateLeft(a, 49) ^ b ^ (b << 21);
+		s1 = Long.rotateLeft(b, 28);
+
+		return result;
+	}
+
+	public int nextInt() {
+		return (int) (nextLong() >>> 32);
+	}
+
+	/**
+	 * Lemire's multiply-and-shift method, with rejection of the few values that
+	 * would make small results more likely than others
+	 */
+	public int nextInt(int bound) {
+
+		if (bound <= 0)
+			throw new IllegalArgumentException("Bound must be positive");
+
+		long product = (nextInt() & 0xFFFFFFFFL) * bound;
+
+		if ((product & 0xFFFFFFFFL) < bound) {
+			long rejected = (0x100000000L - bound) % bound;
+			while ((product & 0xFFFFFFFFL) < rejected)
+				product = (nextInt() & 0xFFFFFFFFL) * bound;
+		}
+
+		return (int) (product >>> 32);
+	}
+
+	public double nextDouble() {
+		return (nextLong() >>> 11) * 0x1.0p-53;
+	}
+
+	/**
+	 * The child is seeded with the next output of this source
+	 */
+	public RandomSource split() {
+		return new XoroshiroRandomSource(nextLong());
+	}
+
+	private static long splitMix(long z) {
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+}
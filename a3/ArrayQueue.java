@@ -0,0 +1,133 @@
+/**
+ * A queue stored in a growable circular array. All operations, including
+ * size(), take constant (amortized) time, and no node is allocated per
+ * element: once the array has grown to the longest length of the queue,
+ * enqueue() and dequeue() do not allocate.
+ *
+ * A queue can optionally shrink on drain: when it empties down to a quarter of
+ * its capacity, the array is halved (never below the initial capacity), so
+ * that a queue that was once very long does not hold on to its memory.
+ */
+public class ArrayQueue<E> implements Queue<E> {
+
+	private static final int DEFAULT_CAPACITY = 16;
+
+	private E[] elems;
+	private int mask;
+	private int front;
+	private int size;
+
+	private int initialCapacity;
+	private boolean shrinkOnDrain;
+
+	/**
+	 * Constructs a queue that never shrinks
+	 */
+	public ArrayQueue() {
+		this(DEFAULT_CAPACITY, false);
+	}
+
+	/**
+	 * @param initialCapacity is the number of elements the queue can hold before
+	 *                        it grows; it is rounded up to a power of two
+	 * @param shrinkOnDrain   is true if the array should shrink as the queue
+	 *                        empties
+	 */
+	@SuppressWarnings("unchecked")
+	public ArrayQueue(int initialCapacity, boolean shrinkOnDrain) {
+
+		if (initialCapacity <= 0 || initialCapacity > (1 << 30))
+			throw new IllegalArgumentException("Initial capacity must be between 1 and 2^30");
+
+		int capacity = Integer.highestOneBit(initialCapacity);
+		if (capacity < initialCapacity)
+			capacity *= 2;
+
+		this.elems = (E[]) new Object[capacity];
+		this.mask = capacity - 1;
+		this.front = 0;
+		this.size = 0;
+		this.initialCapacity = capacity;
+		this.shrinkOnDrain = shrinkOnDrain;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	public void enqueue(E newElement) {
+
+		if (newElement == null)
+			throw new NullPointerException("no null object in my queue !");
+
+		if (size == elems.length)
+			resize(2 * elems.length);
+
+		elems[(front + size) & mask] = newElement;
+		size++;
+	}
+
+	public E dequeue() {
+
+		if (isEmpty())
+			throw new IllegalStateException("Dequeue method called on an empty queue");
+
+		E returnedValue = elems[front];
+		elems[front] = null;
+		front = (front + 1) & mask;
+		size--;
+
+		if (shrinkOnDrain && elems.length > initialCapacity && size <= elems.length / 4)
+			resize(elems.length / 2);
+
+		return returnedValue;
+	}
+
+	public E peek() {
+		if (isEmpty())
+			throw new IllegalStateException("Cannot peek from an empty queue");
+
+		return elems[front];
+	}
+
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * @return the number of elements the queue can hold before it grows
+	 */
+	public int capacity() {
+		return elems.length;
+	}
+
+	/**
+	 * Moves the elements, in order, to the start of a new array
+	 */
+	@SuppressWarnings("unchecked")
+	private void resize(int capacity) {
+		E[] resized = (E[]) new Object[capacity];
+
+		int firstPart = Math.min(size, elems.length - front);
+		System.arraycopy(elems, front, resized, 0, firstPart);
+		System.arraycopy(elems, 0, resized, firstPart, size - firstPart);
+
+		elems = resized;
+		mask = capacity - 1;
+		front = 0;
+	}
+
+	public String toString() {
+
+		StringBuffer returnedValue = new StringBuffer("[");
+
+		for (int i = 0; i < size; i++) {
+			if (i > 0)
+				returnedValue.append(", ");
+			returnedValue.append(elems[(front + i) & mask]);
+		}
+
+		returnedValue.append("]");
+		return returnedValue.toString();
+	}
+}
@@ -0,0 +1,236 @@
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.util.Scanner;
+
+/**
+ * The rate at which cars arrive in front of a lot over a day, as a
+ * piecewise-constant function of time: the day is divided into bins of equal
+ * length (e.g., 24 bins of one hour, or 96 bins of 15 minutes), each with its
+ * own hourly rate. Within a bin, a car arrives in any given second with
+ * probability rate / 3600, as with a single hourly rate. The profile repeats
+ * itself after its last bin.
+ */
+public class ArrivalProfile {
+
+	/**
+	 * The delimiter that separates values in a profile file
+	 */
+	private static final String SEPARATOR = ",";
+
+	/**
+	 * Length of each bin in (simulated) seconds
+	 */
+	private int binSeconds;
+
+	/**
+	 * Hourly arrival rate of each bin
+	 */
+	private int[] ratesPerHour;
+
+	/**
+	 * Probability of an arrival in any given second of each bin
+	 */
+	private Rational[] probabilitiesPerSec;
+
+	/**
+	 * probabilitiesPerSec as thresholds for RandomGenerator.eventOccurred()
+	 */
+	private long[] thresholdsPerSec;
+
+	/**
+	 * @param binSeconds   is the length of each bin in (simulated) seconds
+	 * @param ratesPerHour holds the hourly arrival rate of each bin, in order
+	 */
+	public ArrivalProfile(int binSeconds, int[] ratesPerHour) {
+
+		if (binSeconds <= 0)
+			throw new IllegalArgumentException("Bin length must be positive");
+
+		if (ratesPerHour == null || ratesPerHour.length == 0)
+			throw new IllegalArgumentException("A profile needs at least one rate");
+
+		this.binSeconds = binSeconds;
+		this.ratesPerHour = ratesPerHour.clone();
+		this.probabilitiesPerSec = new Rational[ratesPerHour.length];
+		this.thresholdsPerSec = new long[ratesPerHour.length];
+
+		for (int bin = 0; bin < ratesPerHour.length; bin++) {
+			if (ratesPerHour[bin] < 0)
+				throw new IllegalArgumentException("Rates must be non-negative");
+
+			probabilitiesPerSec[bin] = new Rational(ratesPerHour[bin], 3600);
+			thresholdsPerSec[bin] = RandomGenerator.threshold(probabilitiesPerSec[bin]);
+		}
+	}
+
+	/**
+	 * @param perHourArrivalRate is the hourly rate at which cars arrive, at any
+	 *                           time
+	 * @return a profile with a single rate that never changes
+	 */
+	public static ArrivalProfile constant(int perHourArrivalRate) {
+		return new ArrivalProfile(Integer.MAX_VALUE, new int[] { perHourArrivalRate });
+	}
+
+	/**
+	 * Loads a profile from a file that lists the hourly rates of the bins of one
+	 * day, in order, separated by commas and/or line breaks. The bins divide the
+	 * day evenly: 24 rates give one bin per hour, 96 rates one bin per 15
+	 * minutes. Blank lines and lines starting with # are ignored.
+	 * 
+	 * @param filename is the name of the file
+	 * @return the profile
+	 * @throws FileNotFoundException    if the file does not exist
+	 * @throws IllegalArgumentException if the file is not a valid profile
+	 */
+	public static ArrivalProfile load(String filename) throws FileNotFoundException {
+		Scanner scanner = new Scanner(new File(filename));
+		int[] rates = new int[24];
+		int numRates = 0;
+		int lineNumber = 0;
+
+		try {
+			while (scanner.hasNextLine()) {
+				String line = scanner.nextLine().trim();
+				lineNumber++;
+
+				if (line.isEmpty() || line.startsWith("#"))
+					continue;
+
+				for (String token : line.split(SEPARATOR)) {
+					token = token.trim();
+
+					if (!token.matches("\\d+"))
+						throw new IllegalArgumentException(
+								filename + ":" + lineNumber + ": not a non-negative integer rate: \"" + token + "\"");
+
+					if (numRates == rates.length) {
+						int[] larger = new int[2 * rates.length];
+						System.arraycopy(rates, 0, larger, 0, numRates);
+						rates = larger;
+					}
+
+					rates[numRates++] = Integer.parseInt(token);
+				}
+			}
+		} finally {
+			scanner.close();
+		}
+
+		if (numRates == 0 || Simulator.SIMULATION_DURATION % numRates != 0)
+			throw new IllegalArgumentException(filename + ": the number of rates (" + numRates
+					+ ") must divide a day into bins of whole seconds");
+
+		int[] ratesPerHour = new int[numRates];
+		System.arraycopy(rates, 0, ratesPerHour, 0, numRates);
+
+		return new ArrivalProfile(Simulator.SIMULATION_DURATION / numRates, ratesPerHour);
+	}
+
+	/**
+	 * @return the length of each bin in (simulated) seconds
+	 */
+	public int getBinSeconds() {
+		return binSeconds;
+	}
+
+	/**
+	 * @return the number of bins
+	 */
+	public int getNumBins() {
+		return ratesPerHour.length;
+	}
+
+	/**
+	 * @param time is a (simulated) time
+	 * @return the hourly arrival rate at the given time
+	 */
+	public int getRatePerHour(int time) {
+		return ratesPerHour[binOf(time)];
+	}
+
+	/**
+	 * @param time is a (simulated) time
+	 * @return the threshold (see RandomGenerator.threshold()) of an arrival in the
+	 *         given second
+	 */
+	public long getThresholdPerSec(int time) {
+		return thresholdsPerSec[binOf(time)];
+	}
+
+	/**
+	 * @param steps is a number of (simulated) seconds, starting at time 0
+	 * @return the expected number of arrivals over these seconds
+	 */
+	public double expectedArrivals(int steps) {
+		double arrivals = 0.0d;
+
+		for (int time = 0; time < steps;) {
+			int bin = binOf(time);
+			int end = (int) Math.min(binEnd(time), steps);
+			arrivals += (end - time) * probabilitiesPerSec[bin].toDouble();
+			time = end;
+		}
+
+		return arrivals;
+	}
+
+	/**
+	 * Draws the time of the next arrival, as if an arrival were checked for once
+	 * per second from time + 1 on. Within a bin the gap to the next arrival is
+	 * geometric, so it is drawn in one go; a gap that goes past the end of the
+	 * bin is thrown away and drawing starts over at the next bin, which is exact
+	 * since the per-second checks are independent. The work is thus proportional
+	 * to the number of arrivals plus the number of bins crossed.
+	 * 
+	 * @param random is the source of randomness
+	 * @param time   is the time of the last arrival check
+	 * @param limit  is the time at which to stop looking
+	 * @return the time of the next arrival, or limit if there is no arrival
+	 *         before limit
+	 */
+	public int nextArrival(RandomSource random, int time, int limit) {
+
+		while (true) {
+			int bin = binOf(time + 1);
+			long end = binEnd(time + 1);
+
+			int gap = RandomGenerator.timeUntilEvent(random, probabilitiesPerSec[bin]);
+
+			if (time + (long) gap < end)
+				return (int) Math.min(time + (long) gap, limit);
+
+			// no arrival in the rest of this bin
+			if (end >= limit)
+				return limit;
+
+			time = (int) end - 1;
+		}
+	}
+
+	private int binOf(int time) {
+		return (time / binSeconds) % ratesPerHour.length;
+	}
+
+	/**
+	 * @return the first second after the bin of a given time
+	 */
+	private long binEnd(int time) {
+		return ((long) (time / binSeconds) + 1) * binSeconds;
+	}
+
+	/**
+	 * Returns a string representation of the profile
+	 */
+	public String toString() {
+		StringBuffer buffer = new StringBuffer();
+
+		for (int bin = 0; bin < ratesPerHour.length; bin++) {
+			if (bin > 0)
+				buffer.append(", ");
+			buffer.append(ratesPerHour[bin]);
+		}
+
+		return buffer.append(" cars/h per ").append(binSeconds).append(" s").toString();
+	}
+}
@@ -0,0 +1,29 @@
+/**
+ * The arrivals of a simulated day, and the stays of the arriving cars, in the
+ * order in which the event-driven engine of Simulator consumes them: the time
+ * of every arrival, the plate of the car that arrives, and the stay of every
+ * car that parks. Cars park in the order in which they arrive, so the k-th
+ * stay belongs to the k-th car.
+ */
+public interface ArrivalStream {
+
+	/**
+	 * @param time  is the time of the previous arrival (or of the arrival check
+	 *              before the first one)
+	 * @param limit is the time at which the simulation ends
+	 * @return the time of the next arrival, strictly after time, or limit if
+	 *         there are no more arrivals before limit
+	 */
+	int nextArrival(int time, int limit);
+
+	/**
+	 * @return the plate code (see RandomGenerator.encodePlate()) of the car that
+	 *         arrives
+	 */
+	int nextPlateCode();
+
+	/**
+	 * @return the number of seconds that the next car to park stays in the lot
+	 */
+	int nextStay();
+}
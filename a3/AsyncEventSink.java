@@ -0,0 +1,250 @@
+import java.io.PrintStream;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * An event sink that prints events from a background thread. Events are
+ * recorded as raw values in a fixed-size ring buffer, and a writer thread
+ * formats and prints them in batches, so that the simulation never waits for
+ * I/O. When the writer falls behind and the buffer is full, new events are
+ * dropped (and counted) rather than blocking the simulation, unless the sink
+ * is blocking: then the caller waits until the writer has made room, so that
+ * a trace that is meant to be complete is printed in full.
+ *
+ * close() must be called to print the remaining events and stop the writer.
+ */
+public class AsyncEventSink implements EventSink, AutoCloseable {
+
+	private static final int ENTERED = 0;
+	private static final int EXITED = 1;
+	private static final int LOT_SIZE = 2;
+	private static final int RUN = 3;
+	private static final int LOT_SIZE_DONE = 4;
+
+	/**
+	 * Time the writer thread sleeps when there is nothing to print
+	 */
+	private static final long IDLE_NANOS = 1_000_000L;
+
+	private PrintStream out;
+
+	// ring buffer, one slot per event; slot i holds event number i modulo the
+	// capacity of the buffer. The meaning of the values depends on the type:
+	// car events store (plate, timestamp, occupancy), lot sizes (-, lot size, -),
+	// runs (-, run, queue length, duration) and completed lot sizes (-, lot
+	// size, runs, -, mean, half-width)
+	private int[] types;
+	private String[] plates;
+	private int[] values;
+	private int[] otherValues;
+	private long[] durations;
+	private double[] means;
+	private double[] halfWidths;
+	private int mask;
+
+	/**
+	 * Number of the next event to print; written by the writer thread only
+	 */
+	private volatile long head;
+
+	/**
+	 * Number of the next event to record; written by producers only
+	 */
+	private volatile long tail;
+
+	private long dropped;
+
+	/**
+	 * Whether a full buffer makes producers wait rather than drop events
+	 */
+	private boolean blocking;
+
+	private volatile boolean closed;
+
+	private Thread writer;
+
+	/**
+	 * Constructs a sink with room for 65536 pending events
+	 *
+	 * @param out is the stream to print events to
+	 */
+	public AsyncEventSink(PrintStream out) {
+		this(out, 1 << 16);
+	}
+
+	/**
+	 * Constructs a sink that drops events when its buffer is full
+	 *
+	 * @param out      is the stream to print events to
+	 * @param capacity is the number of events that can be pending; it is rounded
+	 *                 up to a power of two
+	 */
+	public AsyncEventSink(PrintStream out, int capacity) {
+		this(out, capacity, false);
+	}
+
+	/**
+	 * @param out      is the stream to print events to
+	 * @param capacity is the number of events that can be pending; it is rounded
+	 *                 up to a power of two
+	 * @param blocking is true if a full buffer makes the caller wait for room,
+	 *                 false if it drops the event
+	 */
+	public AsyncEventSink(PrintStream out, int capacity, boolean blocking) {
+
+		if (out == null)
+			throw new NullPointerException("Output stream cannot be null");
+
+		if (capacity <= 0 || capacity > (1 << 30))
+			throw new IllegalArgumentException("Capacity must be between 1 and 2^30");
+
+		int size = Integer.highestOneBit(capacity);
+		if (size < capacity)
+			size *= 2;
+
+		this.out = out;
+		this.blocking = blocking;
+		this.types = new int[size];
+		this.plates = new String[size];
+		this.values = new int[size];
+		this.otherValues = new int[size];
+		this.durations = new long[size];
+		this.means = new double[size];
+		this.halfWidths = new double[size];
+		this.mask = size - 1;
+
+		this.writer = new Thread(this::drain, "event-sink-writer");
+		this.writer.setDaemon(true);
+		this.writer.start();
+	}
+
+	public void carEntered(Car car, int timestamp, int occupancy) {
+		offer(ENTERED, car.getPlateNum(), timestamp, occupancy, 0, 0, 0);
+	}
+
+	public void carExited(Car car, int timestamp, int occupancy) {
+		offer(EXITED, car.getPlateNum(), timestamp, occupancy, 0, 0, 0);
+	}
+
+	public void lotSizeStarted(int lotSize) {
+		offer(LOT_SIZE, null, lotSize, 0, 0, 0, 0);
+	}
+
+	public void runCompleted(int run, long millis, int queueLength) {
+		offer(RUN, null, run, queueLength, millis, 0, 0);
+	}
+
+	public void lotSizeCompleted(int lotSize, int runs, double meanQueueLength, double halfWidth) {
+		offer(LOT_SIZE_DONE, null, lotSize, runs, 0, meanQueueLength, halfWidth);
+	}
+
+	/**
+	 * @return the number of events dropped because the buffer was full
+	 */
+	public synchronized long getDropped() {
+		return dropped;
+	}
+
+	/**
+	 * Prints the pending events and stops the writer thread. Events recorded
+	 * after close() are not printed.
+	 */
+	public void close() {
+		synchronized (this) {
+			closed = true;
+		}
+		LockSupport.unpark(writer);
+
+		try {
+			writer.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private synchronized void offer(int type, String plate, int value, int otherValue, long duration, double mean,
+			double halfWidth) {
+		if (blocking)
+			awaitRoom();
+
+		long t = tail;
+
+		if (closed || t - head > mask) {
+			dropped++;
+			return;
+		}
+
+		// the plate is copied rather than the car, since the car may change before
+		// it is printed
+		int i = (int) t & mask;
+		types[i] = type;
+		plates[i] = plate;
+		values[i] = value;
+		otherValues[i] = otherValue;
+		durations[i] = duration;
+		means[i] = mean;
+		halfWidths[i] = halfWidth;
+
+		tail = t + 1; // publishes the slot to the writer
+	}
+
+	/**
+	 * Waits until the writer has printed at least one pending event, or the sink
+	 * is closed. Producers are serialized by offer(), so no other producer takes
+	 * the room in the meantime.
+	 */
+	private void awaitRoom() {
+		while (!closed && tail - head > mask)
+			LockSupport.parkNanos(IDLE_NANOS);
+	}
+
+	private void drain() {
+		StringBuilder batch = new StringBuilder();
+
+		while (true) {
+			long h = head;
+			long t = tail;
+
+			if (h == t) {
+				if (closed && h == tail)
+					break;
+
+				LockSupport.parkNanos(IDLE_NANOS);
+				continue;
+			}
+
+			for (; h < t; h++) {
+				int i = (int) h & mask;
+				format(batch, i);
+				plates[i] = null;
+			}
+
+			head = h; // frees the slots for producers
+
+			out.print(batch);
+			out.flush();
+			batch.setLength(0);
+		}
+	}
+
+	private void format(StringBuilder batch, int i) {
+		String newLine = System.lineSeparator();
+
+		if (types[i] == LOT_SIZE)
+			batch.append(newLine).append(newLine).append("==== Setting lot capacity to: ").append(values[i])
+					.append("====").append(newLine);
+
+		else if (types[i] == RUN)
+			batch.append("Simulation run ").append(values[i]).append(" (").append(durations[i])
+					.append("ms); Queue length at the end of simulation run: ").append(otherValues[i]).append(newLine);
+
+		else if (types[i] == LOT_SIZE_DONE)
+			batch.append("Lot capacity ").append(values[i]).append(": ").append(otherValues[i])
+					.append(" runs; mean queue length ").append(String.format("%.2f +/- %.2f", means[i], halfWidths[i]))
+					.append(newLine);
+
+		else
+			batch.append("Plate:  ").append(plates[i]).append(types[i] == ENTERED ? " ENTERED" : " EXITED")
+					.append(" at timestep ").append(values[i]).append("; occupancy is at ").append(otherValues[i])
+					.append(newLine);
+	}
+}
@@ -0,0 +1,158 @@
+import java.util.Arrays;
+
+/**
+ * Computes, in a single pass over a day of arrivals and stays, the length of
+ * the incoming queue at the end of the day for a whole range of lot sizes, as
+ * the event-driven engine of Simulator would when replaying the day.
+ * 
+ * Cars park in order of arrival, at most one per second, and a car can take a
+ * spot in the second in which another car leaves it. So with a lot of size c,
+ * car k parks at
+ * 
+ * start(k) = max(arrival(k), start(k - 1) + 1, D(k)),
+ * 
+ * where D(k) is the c-th latest departure among cars 1 to k - 1 (the time at
+ * which fewer than c of them are left in the lot), and leaves at start(k) +
+ * stay(k). For every lot size, the c latest departures are kept in a 4-ary
+ * min-heap of size c, which makes the cost of a car O(log c) per lot size,
+ * with no events, objects or random numbers.
+ * 
+ * Until a lot fills up, it parks every car as if it were unbounded, exactly
+ * like all larger lots. The state of the smallest lot size that has never been
+ * full is thus shared with all larger sizes, and the next size gets its own
+ * copy only when that one fills up; lot sizes that never fill up cost nothing.
+ */
+public class CapacityCurve {
+
+	/**
+	 * @param day         is the day to replay; its arrivals and stays are read
+	 *                    once
+	 * @param steps       is the length of the day in (simulated) seconds
+	 * @param minCapacity is the smallest lot size, at least 1
+	 * @param maxCapacity is the largest lot size
+	 * @return the length of the incoming queue at the end of the day for lot
+	 *         sizes minCapacity to maxCapacity, in order
+	 */
+	public static int[] queueLengths(ArrivalStream day, int steps, int minCapacity, int maxCapacity) {
+
+		if (day == null)
+			throw new NullPointerException("Arrival stream cannot be null");
+
+		if (minCapacity < 1 || maxCapacity < minCapacity)
+			throw new IllegalArgumentException("Capacities must satisfy 1 <= minCapacity <= maxCapacity");
+
+		int numCapacities = maxCapacity - minCapacity + 1;
+
+		// heap i holds the latest departures for lot size minCapacity + i, in
+		// departures[offsets[i]] to departures[offsets[i] + sizes[i] - 1]; it is
+		// followed by 3 slots that stay at Integer.MAX_VALUE, so that the children
+		// of a node can be compared without checking which of them exist
+		long total = 0;
+		int[] offsets = new int[numCapacities];
+		for (int i = 0; i < numCapacities; i++) {
+			offsets[i] = (int) total;
+			total += minCapacity + i + 3;
+		}
+
+		if (total > Integer.MAX_VALUE - 8)
+			throw new IllegalArgumentException("Too many lot sizes at once");
+
+		int[] departures = new int[(int) total];
+		Arrays.fill(departures, Integer.MAX_VALUE);
+		int[] sizes = new int[numCapacities];
+		int[] lastStarts = new int[numCapacities];
+		int[] entered = new int[numCapacities];
+
+		Arrays.fill(lastStarts, Integer.MIN_VALUE);
+
+		int arrived = 0;
+
+		// lot sizes above minCapacity + shared share the state of that size
+		int shared = 0;
+
+		for (int time = day.nextArrival(-1, steps); time < steps; time = day.nextArrival(time, steps)) {
+			day.nextPlateCode();
+			int stay = day.nextStay();
+			arrived++;
+
+			for (int i = 0; i <= shared; i++) {
+				// a car that does not park before the end of the day leaves the lot
+				// size out for the rest of the day
+				if (lastStarts[i] >= steps)
+					continue;
+
+				int capacity = minCapacity + i;
+				int offset = offsets[i];
+				int start = Math.max(time, lastStarts[i] + 1);
+
+				if (sizes[i] == capacity)
+					start = Math.max(start, departures[offset]);
+
+				lastStarts[i] = start;
+
+				if (start >= steps)
+					continue;
+
+				entered[i]++;
+
+				// the departure is later than the earliest one in the heap, which it
+				// replaces if the heap is full
+				if (sizes[i] == capacity)
+					siftDown(departures, offset, capacity, start + stay);
+				else
+					siftUp(departures, offset, sizes[i]++, start + stay);
+			}
+
+			if (sizes[shared] == minCapacity + shared && shared < numCapacities - 1) {
+				System.arraycopy(departures, offsets[shared], departures, offsets[shared + 1], sizes[shared]);
+				sizes[shared + 1] = sizes[shared];
+				lastStarts[shared + 1] = lastStarts[shared];
+				entered[shared + 1] = entered[shared];
+				shared++;
+			}
+		}
+
+		for (int i = shared + 1; i < numCapacities; i++)
+			entered[i] = entered[shared];
+
+		int[] queueLengths = new int[numCapacities];
+		for (int i = 0; i < numCapacities; i++)
+			queueLengths[i] = arrived - entered[i];
+
+		return queueLengths;
+	}
+
+	private static void siftUp(int[] heap, int offset, int i, int value) {
+		while (i > 0) {
+			int parent = (i - 1) >>> 2;
+			if (heap[offset + parent] <= value)
+				break;
+			heap[offset + i] = heap[offset + parent];
+			i = parent;
+		}
+		heap[offset + i] = value;
+	}
+
+	/**
+	 * Replaces the root of a full heap with a value that is not smaller. New
+	 * departures are mostly later than all others, so the hole left by the root
+	 * is moved down to a leaf first, along the smallest children, and the value
+	 * is then moved up from there, which rarely takes a step (Floyd's bottom-up
+	 * heap). The smallest child is selected without branches.
+	 */
+	private static void siftDown(int[] heap, int offset, int size, int value) {
+		int i = 0;
+		int child;
+		while ((child = 4 * i + 1) < size) {
+			int base = offset + child;
+			int a = heap[base] <= heap[base + 1] ? 0 : 1;
+			int b = heap[base + 2] <= heap[base + 3] ? 2 : 3;
+			int best = heap[base + a] <= heap[base + b] ? a : b;
+			child += best;
+			heap[offset + i] = heap[offset + child];
+			i = child;
+		}
+
+		siftUp(heap, offset, i, value);
+	}
+}
@@ -0,0 +1,191 @@
+/**
+ * An analytic estimate of the lot size that CapacityOptimizer searches for,
+ * used to narrow down the lot sizes worth simulating.
+ * 
+ * If every car could park as soon as it arrives, the number of parked cars at
+ * time t would be Poisson distributed with mean m(t), the offered load: the
+ * expected number of cars that arrived before t and have not left yet (the
+ * M/G/infinity model). With a lot of size c, cars that arrive when the lot is
+ * full wait in the queue, and leave later than they would have otherwise, so
+ * the number of cars in the lot and the queue at the end of the day is at
+ * least that Poisson count N; the queue is thus at least (N - c) on average.
+ * 
+ * The estimate is the smallest c for which E[(N - c)^+] at the end of the day
+ * is at most the threshold of the optimizer. Since the simulated queue is only
+ * longer, the estimate is (up to the noise of the simulation) a lower bound on
+ * the answer. A lot that is BOUND_SIGMAS standard deviations larger than the
+ * offered load at its peak hardly ever fills up, which gives a likely upper
+ * bound. The lower bound is the estimate minus the same margin, to allow for
+ * the noise of averaging a few simulation runs.
+ */
+public class CapacityEstimate {
+
+	/**
+	 * Width of the margins around the estimate, in standard deviations of the
+	 * number of parked cars
+	 */
+	public static final double BOUND_SIGMAS = 3.0d;
+
+	/**
+	 * Spacing of the times at which the offered load is evaluated to find its
+	 * peak, in (simulated) seconds
+	 */
+	private static final int PEAK_RESOLUTION = 60;
+
+	private double offeredLoad;
+	private double peakLoad;
+	private double meanStay;
+	private int estimate;
+	private int lowerBound;
+	private int upperBound;
+
+	/**
+	 * @param arrivalProfile gives the hourly arrival rate over the day
+	 * @param steps          is the length of a simulated day in (simulated)
+	 *                       seconds
+	 * @param threshold      is the largest acceptable average length of the
+	 *                       incoming queue at the end of a day
+	 */
+	public CapacityEstimate(ArrivalProfile arrivalProfile, int steps, double threshold) {
+
+		if (arrivalProfile == null)
+			throw new NullPointerException("Arrival profile cannot be null");
+
+		if (steps < 0)
+			throw new IllegalArgumentException("Steps should be a non negative integer");
+
+		if (threshold < 0)
+			throw new IllegalArgumentException("Threshold should be non negative");
+
+		double[] survivalSums = survivalSums(Simulator.getStayCdf());
+
+		this.meanStay = survivalSums[survivalSums.length - 1];
+		this.offeredLoad = offeredLoad(arrivalProfile, survivalSums, steps);
+		this.peakLoad = offeredLoad;
+
+		for (int time = 0; time < steps; time += PEAK_RESOLUTION)
+			peakLoad = Math.max(peakLoad, offeredLoad(arrivalProfile, survivalSums, time));
+
+		this.estimate = Math.max(1, smallestCapacity(offeredLoad, threshold));
+		this.lowerBound = Math.max(1, estimate - (int) Math.ceil(BOUND_SIGMAS * Math.sqrt(offeredLoad)));
+		this.upperBound = Math.max(estimate,
+				smallestCapacity(peakLoad, threshold) + (int) Math.ceil(BOUND_SIGMAS * Math.sqrt(peakLoad)));
+	}
+
+	/**
+	 * @return the expected number of parked cars at the end of the day if every
+	 *         car could park as soon as it arrives
+	 */
+	public double getOfferedLoad() {
+		return offeredLoad;
+	}
+
+	/**
+	 * @return the largest offered load over the day
+	 */
+	public double getPeakLoad() {
+		return peakLoad;
+	}
+
+	/**
+	 * @return the mean stay of a car in (simulated) seconds
+	 */
+	public double getMeanStay() {
+		return meanStay;
+	}
+
+	/**
+	 * @return the estimated lot size
+	 */
+	public int getEstimate() {
+		return estimate;
+	}
+
+	/**
+	 * @return a lot size that is very likely too small, at least 1
+	 */
+	public int getLowerBound() {
+		return lowerBound;
+	}
+
+	/**
+	 * @return a lot size that is very likely large enough
+	 */
+	public int getUpperBound() {
+		return upperBound;
+	}
+
+	/**
+	 * @param stayCdf is the cumulative distribution of a car's stay
+	 * @return an array whose entry d is the sum of P(stay > j) for j < d, i.e.,
+	 *         the expected number of seconds among the first d after parking
+	 *         that a car is still parked; the last entry is the mean stay
+	 */
+	private static double[] survivalSums(double[] stayCdf) {
+		double[] sums = new double[stayCdf.length + 1];
+
+		for (int d = 0; d < stayCdf.length; d++)
+			sums[d + 1] = sums[d] + (1.0d - stayCdf[d]);
+
+		return sums;
+	}
+
+	/**
+	 * @return the expected number of cars that arrived before a given time and
+	 *         are still parked at that time, when every car parks on arrival
+	 */
+	private static double offeredLoad(ArrivalProfile arrivalProfile, double[] survivalSums, int time) {
+		double load = 0.0d;
+		int binSeconds = arrivalProfile.getBinSeconds();
+
+		// the arrivals of each bin that overlaps the last stays, from the most
+		// recent one backwards; an arrival at second s is still parked at time
+		// with probability P(stay > time - s)
+		for (int end = time; end > 0 && time - end < survivalSums.length - 1;) {
+			int start = Math.max(0, (end - 1) / binSeconds * binSeconds);
+			double perSec = arrivalProfile.getRatePerHour(end - 1) / 3600.0d;
+
+			// sum of P(stay > d) for d = time - end + 1 .. time - start
+			load += perSec * (survival(survivalSums, time - start + 1) - survival(survivalSums, time - end + 1));
+
+			end = start;
+		}
+
+		return load;
+	}
+
+	private static double survival(double[] survivalSums, int d) {
+		return survivalSums[Math.min(d, survivalSums.length - 1)];
+	}
+
+	/**
+	 * @param load      is the mean of a Poisson distributed number N of cars
+	 * @param threshold is the largest acceptable mean overflow
+	 * @return the smallest c for which E[max(N - c, 0)] is at most threshold
+	 */
+	static int smallestCapacity(double load, double threshold) {
+		// E[(N - c)^+] = load - c + E[(c - N)^+], and E[(c - N)^+] grows by
+		// P(N <= c) from c to c + 1
+		double below = 0.0d; // E[(c - N)^+]
+		double cumulative = 0.0d; // P(N <= c)
+		double logP = -load; // log P(N = c)
+		int c = 0;
+
+		while (load - c + below > threshold) {
+			cumulative += Math.exp(logP);
+			below += Math.min(1.0d, cumulative);
+			c++;
+			logP += Math.log(load) - Math.log(c);
+		}
+
+		return c;
+	}
+
+	/**
+	 * Returns a string representation of the estimate
+	 */
+	public String toString() {
+		return String.format("offered load %.1f cars (peak %.1f, mean stay %.0f s), estimated lot size %d, bounds [%d, %d]",
+				offeredLoad, peakLoad, meanStay, estimate, lowerBound, upperBound);
+	}
+}
@@ -1,38 +1,961 @@
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.LongFunction;
 
 public class CapacityOptimizer {
 	private static final int NUM_RUNS = 10;
 
 	private static final double THRESHOLD = 5.0d;
 
-	public static int getOptimalNumberOfSpots(int hourlyRate) {
+	/**
+	 * 97.5% quantiles of Student's t distribution with 1 to 30 degrees of
+	 * freedom, for two-sided 95% confidence intervals
+	 */
+	private static final double[] T_QUANTILES = { 12.706, 4.303, 3.182, 2.776, 2.571, 2.447, 2.365, 2.306, 2.262,
+			2.228, 2.201, 2.179, 2.160, 2.145, 2.131, 2.120, 2.110, 2.101, 2.093, 2.086, 2.080, 2.074, 2.069, 2.064,
+			2.060, 2.056, 2.052, 2.048, 2.045, 2.042 };
+
+	/**
+	 * 97.5% quantile of the standard normal distribution, for more than 30 degrees
+	 * of freedom
+	 */
+	private static final double Z_QUANTILE = 1.960;
+
+	/**
+	 * The hourly rate at which cars arrive in front of the lot, over the day
+	 */
+	private ArrivalProfile arrivalProfile;
+
+	/**
+	 * The algorithm used by the simulators
+	 */
+	private SimulationEngine engine;
+
+	/**
+	 * Executor on which the replications for one lot size run concurrently; null
+	 * when the replications run one after another in the calling thread
+	 */
+	private ExecutorService executor;
+
+	/**
+	 * Seed from which the random stream of every replication is derived
+	 */
+	private long seed;
+
+	/**
+	 * Creates the random source of a lot size from a seed; the sources of the
+	 * replications are split from it
+	 */
+	private LongFunction<RandomSource> randomSources;
+
+	/**
+	 * Receives the progress of the search (lot sizes and simulation runs)
+	 */
+	private EventSink eventSink;
+
+	/**
+	 * The strategy used to search for the optimal lot size
+	 */
+	private SearchMode searchMode;
+
+	/**
+	 * Number of simulation runs after which a lot size may be decided on, and
+	 * after which it is decided on at the latest; both are NUM_RUNS by default
+	 */
+	private int minRuns;
+	private int maxRuns;
+
+	/**
+	 * Replication i of every lot size runs on simulators[i], with lots[i]; they
+	 * are created on first use and reset between lot sizes
+	 */
+	private Simulator[] simulators;
+	private ParkingLot[] lots;
+
+	/**
+	 * Wall-clock duration of replication i of the current lot size
+	 */
+	private long[] durations;
+
+	/**
+	 * Whether replication i of every lot size replays the same day, samplePaths[i]
+	 */
+	private boolean commonRandomNumbers;
+
+	/**
+	 * Days replayed with common random numbers, drawn on first use by the current
+	 * search, in order, from samplePathSource
+	 */
+	private SamplePath[] samplePaths;
+	private RandomSource samplePathSource;
+
+	/**
+	 * Trace whose segment i replication i of every lot size replays, or null
+	 */
+	private Path trace;
+
+	/**
+	 * Replays of the segments of trace, opened on first use by the current search
+	 */
+	private MappedTrace[] traceSegments;
+
+	/**
+	 * Number of (simulated) seconds of the day that the replications of a lot
+	 * size share, or 0 if every replication simulates the whole day
+	 */
+	private int warmup;
+
+	/**
+	 * State of the lot size being simulated at the end of its warm-up, or null
+	 * without a warm-up
+	 */
+	private SimulatorCheckpoint warmedUp;
+
+	/**
+	 * Metrics of the warm-up of the lot size being simulated, which every
+	 * replication that restores warmedUp counts as its own, or null if metrics
+	 * are not recorded
+	 */
+	private SimulationMetrics warmupMetrics;
 
+	/**
+	 * Whether the replications record SimulationMetrics; recorders[i] records
+	 * replication i
+	 */
+	private boolean recordMetrics;
+	private SimulationMetrics[] recorders;
+
+	/**
+	 * Metrics of the smallest lot size found large enough by the last search,
+	 * added up over its runs, and the number of those runs
+	 */
+	private SimulationMetrics optimalMetrics;
+	private int optimalLotSize;
+	private int optimalRuns;
+
+	/**
+	 * Analytic estimate of the answer, computed by the last search
+	 */
+	private CapacityEstimate estimate;
+
+	/**
+	 * Number of lot sizes simulated by the last search
+	 */
+	private int candidatesEvaluated;
+
+	/**
+	 * Number of simulation runs performed by the last search
+	 */
+	private int simulationsRun;
+
+	/**
+	 * Constructs an optimizer that runs its replications sequentially, with the
+	 * time-stepped engine and a random seed
+	 *
+	 * @param hourlyRate is the hourly rate at which cars arrive in front of the lot
+	 */
+	public CapacityOptimizer(int hourlyRate) {
+		this(constantProfile(hourlyRate));
+	}
+
+	/**
+	 * Same as CapacityOptimizer(int), but with an arrival rate that varies over
+	 * the day
+	 *
+	 * @param arrivalProfile gives the hourly rate at which cars arrive in front of
+	 *                       the lot over the day
+	 */
+	public CapacityOptimizer(ArrivalProfile arrivalProfile) {
+
+		if (arrivalProfile == null)
+			throw new NullPointerException("Arrival profile cannot be null");
+
+		this.arrivalProfile = arrivalProfile;
+		this.engine = SimulationEngine.TIME_STEPPED;
+		this.executor = null;
+		this.seed = new Random().nextLong();
+		this.randomSources = SplittableRandomSource::new;
+		this.searchMode = SearchMode.LINEAR;
+		this.minRuns = NUM_RUNS;
+		this.maxRuns = NUM_RUNS;
+		this.eventSink = new NullEventSink();
+	}
+
+	private static ArrivalProfile constantProfile(int hourlyRate) {
 		if (hourlyRate < 0)
 			throw new IllegalArgumentException("HourlyRate should be a non negative integer !");
 
+		return ArrivalProfile.constant(hourlyRate);
+	}
+
+	public ArrivalProfile getArrivalProfile() {
+		return arrivalProfile;
+	}
+
+	public SimulationEngine getEngine() {
+		return engine;
+	}
+
+	public void setEngine(SimulationEngine engine) {
+		if (engine == null)
+			throw new NullPointerException("Engine cannot be null");
+
+		this.engine = engine;
+	}
+
+	public ExecutorService getExecutor() {
+		return executor;
+	}
+
+	/**
+	 * Sets the executor on which the replications for one lot size run
+	 * concurrently, e.g., a ForkJoinPool or (on Java 21+) a virtual-thread
+	 * executor. The optimizer does not shut the executor down.
+	 *
+	 * @param executor is the executor, or null to run replications sequentially
+	 */
+	public void setExecutor(ExecutorService executor) {
+		this.executor = executor;
+	}
+
+	public long getSeed() {
+		return seed;
+	}
+
+	/**
+	 * Sets the seed from which the random stream of every replication is derived.
+	 * For a given seed, the optimizer always returns the same result, no matter
+	 * which executor runs the replications.
+	 *
+	 * @param seed is the seed
+	 */
+	public void setSeed(long seed) {
+		this.seed = seed;
+	}
+
+	/**
+	 * Sets the kind of random source used by the simulators, e.g.,
+	 * XoroshiroRandomSource::new. By default, SplittableRandomSource is used.
+	 *
+	 * @param randomSources creates a random source from a seed
+	 */
+	public void setRandomSources(LongFunction<RandomSource> randomSources) {
+		if (randomSources == null)
+			throw new NullPointerException("Random source factory cannot be null");
+
+		this.randomSources = randomSources;
+	}
+
+	/**
+	 * Sets the sink that receives the progress of the search: the lot sizes being
+	 * simulated and the outcome of each simulation run. By default, progress is
+	 * not reported.
+	 *
+	 * @param eventSink is the event sink
+	 */
+	public void setEventSink(EventSink eventSink) {
+		if (eventSink == null)
+			throw new NullPointerException("Event sink cannot be null");
+
+		this.eventSink = eventSink;
+	}
+
+	public SearchMode getSearchMode() {
+		return searchMode;
+	}
+
+	public void setSearchMode(SearchMode searchMode) {
+		if (searchMode == null)
+			throw new NullPointerException("Search mode cannot be null");
+
+		this.searchMode = searchMode;
+	}
+
+	public int getMinRuns() {
+		return minRuns;
+	}
+
+	public int getMaxRuns() {
+		return maxRuns;
+	}
+
+	/**
+	 * Sets the number of simulation runs per lot size. With minRuns < maxRuns,
+	 * runs are added one at a time after the first minRuns, and a lot size is
+	 * decided on as soon as the 95% confidence interval on its mean end-of-day
+	 * queue length lies entirely above or below THRESHOLD, or after maxRuns runs.
+	 * Lot sizes far from the answer then take few runs. The decision only depends
+	 * on the runs in order, so that a given seed gives the same result with any
+	 * executor. With a shared warm-up (see setWarmup()), every lot size gets
+	 * maxRuns runs.
+	 *
+	 * @param minRuns is the number of runs that every lot size gets, at least 2
+	 *                unless it equals maxRuns
+	 * @param maxRuns is the largest number of runs that a lot size gets
+	 */
+	public void setRuns(int minRuns, int maxRuns) {
+		if (minRuns < 1 || maxRuns < minRuns)
+			throw new IllegalArgumentException("Runs must satisfy 1 <= minRuns <= maxRuns");
+
+		if (minRuns == 1 && maxRuns > 1)
+			throw new IllegalArgumentException("A confidence interval needs at least 2 runs");
+
+		this.minRuns = minRuns;
+		this.maxRuns = maxRuns;
+	}
+
+	public boolean getCommonRandomNumbers() {
+		return commonRandomNumbers;
+	}
+
+	/**
+	 * Makes replication i of every lot size replay the same day (arrivals, plates
+	 * and stays), drawn once per search and kept in a SamplePath, rather than a
+	 * day drawn for each lot size. Differences between lot sizes are then due to
+	 * the lot sizes only, which makes the search less noisy (and more likely to
+	 * see the queue shrink as the lot grows), and the random quantities are drawn
+	 * only once. Requires the event-driven engine.
+	 *
+	 * @param commonRandomNumbers is true to replay the same days for all lot sizes
+	 */
+	public void setCommonRandomNumbers(boolean commonRandomNumbers) {
+		this.commonRandomNumbers = commonRandomNumbers;
+	}
+
+	public Path getTrace() {
+		return trace;
+	}
+
+	/**
+	 * Makes replication i of every lot size replay segment i of a trace file (see
+	 * TraceWriter), e.g., one written by recordTrace(). The trace needs a segment
+	 * per replication and takes precedence over common random numbers. Requires
+	 * the event-driven engine.
+	 *
+	 * @param trace is the trace file, or null to draw the replicated days
+	 */
+	public void setTrace(Path trace) {
+		this.trace = trace;
+	}
+
+	/**
+	 * Writes the days that replications 1 to maxRuns replay with common random
+	 * numbers to a trace file, one segment per replication, so that they can be
+	 * replayed with setTrace() without being drawn again
+	 *
+	 * @param file is the trace file
+	 * @throws IOException if the file cannot be written
+	 */
+	public void recordTrace(Path file) throws IOException {
+		var source = randomSources.apply(lotSizeSeed(seed, 0));
+		var days = new ArrivalStream[maxRuns];
+
+		for (int i = 0; i < maxRuns; i++)
+			days[i] = new RandomArrivalStream(arrivalProfile, source.split());
+
+		TraceWriter.write(file, Simulator.SIMULATION_DURATION, days);
+	}
+
+	public int getWarmup() {
+		return warmup;
+	}
+
+	/**
+	 * Makes the replications of a lot size branch from one shared simulation of
+	 * the start of the day: the first warmup seconds are simulated once per lot
+	 * size, checkpointed, and every replication restores the checkpoint and
+	 * simulates the rest of the day with its own random stream. This saves
+	 * simulating the warm-up once per replication, at the price of replications
+	 * that are no longer independent: they all start from the same lot and
+	 * queue, so the warm-up should end at least MAX_PARKING_DURATION before the
+	 * end of the day. Since positively correlated runs make the t-interval of
+	 * setRuns() too narrow, sequential stopping is turned off: every lot size
+	 * gets maxRuns runs, and is decided on their mean alone. Cannot be combined
+	 * with replayed days or with SearchMode.CURVE.
+	 *
+	 * @param warmup is the number of (simulated) seconds to simulate once per lot
+	 *               size, or 0 to simulate the whole day in every replication
+	 */
+	public void setWarmup(int warmup) {
+		if (warmup < 0 || warmup >= Simulator.SIMULATION_DURATION)
+			throw new IllegalArgumentException(
+					"Warm-up must be between 0 and " + (Simulator.SIMULATION_DURATION - 1) + " seconds");
+
+		this.warmup = warmup;
+	}
+
+	public boolean getRecordMetrics() {
+		return recordMetrics;
+	}
+
+	/**
+	 * Makes the replications record SimulationMetrics (queue waits, time-weighted
+	 * occupancy and queue length, hourly counts), so that getMetrics() can tell
+	 * more about the lot size found than its average end-of-day queue. Capacity
+	 * curves do not simulate the lot sizes one by one and record nothing. A
+	 * shared warm-up (see setWarmup()) is recorded once and added to every
+	 * replication that starts from it, so that each run covers the whole day.
+	 *
+	 * @param recordMetrics is true to record metrics
+	 */
+	public void setRecordMetrics(boolean recordMetrics) {
+		this.recordMetrics = recordMetrics;
+	}
+
+	/**
+	 * @return the metrics of the lot size found by the last search, added up over
+	 *         its runs (see getMetricsRuns()), or null if none were recorded
+	 */
+	public SimulationMetrics getMetrics() {
+		return optimalMetrics;
+	}
+
+	/**
+	 * @return the number of runs that getMetrics() adds up
+	 */
+	public int getMetricsRuns() {
+		return optimalRuns;
+	}
+
+	/**
+	 * @return the analytic estimate of the optimal lot size, and the bounds used
+	 *         by SearchMode.BOUNDED
+	 */
+	public CapacityEstimate getEstimate() {
+		if (estimate == null)
+			estimate = new CapacityEstimate(arrivalProfile, Simulator.SIMULATION_DURATION, THRESHOLD);
+
+		return estimate;
+	}
+
+	/**
+	 * @return the number of lot sizes simulated by the last search
+	 */
+	public int getCandidatesEvaluated() {
+		return candidatesEvaluated;
+	}
+
+	/**
+	 * @return the number of simulation runs performed by the last search
+	 */
+	public int getSimulationsRun() {
+		return simulationsRun;
+	}
+
+	/**
+	 * Finds the optimal lot size with the time-stepped engine, printing the lot
+	 * sizes being simulated and the outcome of each run to System.out
+	 *
+	 * @param hourlyRate is the number of arrivals per hour
+	 * @return the smallest lot size whose average queue is at most THRESHOLD
+	 */
+	public static int getOptimalNumberOfSpots(int hourlyRate) {
+		return getOptimalNumberOfSpots(hourlyRate, SimulationEngine.TIME_STEPPED);
+	}
+
+	/**
+	 * Same as getOptimalNumberOfSpots(int), with a given engine; the progress is
+	 * printed to System.out in full
+	 *
+	 * @param hourlyRate is the number of arrivals per hour
+	 * @param engine     is the simulation engine
+	 * @return the smallest lot size whose average queue is at most THRESHOLD
+	 */
+	public static int getOptimalNumberOfSpots(int hourlyRate, SimulationEngine engine) {
+		var eventSink = new AsyncEventSink(System.out, 1 << 16, true);
+
+		try {
+			return getOptimalNumberOfSpots(hourlyRate, engine, eventSink);
+		} finally {
+			eventSink.close();
+		}
+	}
+
+	/**
+	 * Same as getOptimalNumberOfSpots(int, SimulationEngine), with the progress
+	 * reported to a given sink, e.g., a NullEventSink to search silently
+	 *
+	 * @param hourlyRate is the number of arrivals per hour
+	 * @param engine     is the simulation engine
+	 * @param eventSink  receives the progress of the search
+	 * @return the smallest lot size whose average queue is at most THRESHOLD
+	 */
+	public static int getOptimalNumberOfSpots(int hourlyRate, SimulationEngine engine, EventSink eventSink) {
+		var optimizer = new CapacityOptimizer(hourlyRate);
+		optimizer.setEngine(engine);
+		optimizer.setEventSink(eventSink);
+		return optimizer.findOptimalNumberOfSpots();
+	}
+
+	/**
+	 * @return the smallest lot size for which the average length of the incoming
+	 *         queue at the end of a day is at most THRESHOLD
+	 */
+	public int findOptimalNumberOfSpots() {
+		if ((commonRandomNumbers || trace != null) && engine != SimulationEngine.EVENT_DRIVEN
+				&& searchMode != SearchMode.CURVE)
+			throw new IllegalStateException("Replaying days requires the event-driven engine");
+
+		if (warmup > 0 && (commonRandomNumbers || trace != null || searchMode == SearchMode.CURVE))
+			throw new IllegalStateException("A shared warm-up cannot be combined with replayed days or capacity curves");
+
+		candidatesEvaluated = 0;
+		optimalMetrics = null;
+		simulationsRun = 0;
+
+		// lot size 0 is never simulated, so its seed is free for the sample paths
+		samplePaths = null;
+		samplePathSource = randomSources.apply(lotSizeSeed(seed, 0));
+
+		try {
+			if (searchMode == SearchMode.GALLOPING)
+				return gallopingSearch();
+
+			if (searchMode == SearchMode.BOUNDED)
+				return boundedSearch();
+
+			if (searchMode == SearchMode.CURVE)
+				return curveSearch();
+
+			return linearSearch();
+		} finally {
+			closeTraceSegments();
+		}
+	}
+
+	private int linearSearch() {
+
+		var lotSize = 1;
+
+		while (!isLargeEnough(lotSize))
+			lotSize++;
+
+		return lotSize;
+	}
+
+	private int gallopingSearch() {
+
+		// largest lot size known to be too small (0 always is)
+		var tooSmall = 0;
 		var lotSize = 1;
 
+		while (!isLargeEnough(lotSize)) {
+			tooSmall = lotSize;
+			lotSize *= 2;
+		}
+
+		// the answer is in (tooSmall, lotSize]
+		while (lotSize - tooSmall > 1) {
+			var middle = (tooSmall + lotSize) >>> 1;
+
+			if (isLargeEnough(middle))
+				lotSize = middle;
+			else
+				tooSmall = middle;
+		}
+
+		return lotSize;
+	}
+
+	private int boundedSearch() {
+		var estimate = getEstimate();
+
+		// largest lot size known to be too small, and smallest one known to be large
+		// enough; the bounds are checked, and moved out if they are wrong
+		var tooSmall = estimate.getLowerBound() - 1;
+		var lotSize = estimate.getUpperBound();
+
+		for (var step = lotSize - estimate.getEstimate(); !isLargeEnough(lotSize); step *= 2) {
+			tooSmall = lotSize;
+			lotSize += Math.max(1, step);
+		}
+
+		// if the upper bound was too small, tooSmall has just been found to be so
+		var lowerBoundChecked = lotSize != estimate.getUpperBound();
+
+		for (var step = estimate.getEstimate() - tooSmall; !lowerBoundChecked && tooSmall > 0
+				&& isLargeEnough(tooSmall); step *= 2) {
+			lotSize = tooSmall;
+			tooSmall = Math.max(0, tooSmall - Math.max(1, step));
+		}
+
+		// the answer is in (tooSmall, lotSize]
+		while (lotSize - tooSmall > 1) {
+			var middle = (tooSmall + lotSize) >>> 1;
+
+			if (isLargeEnough(middle))
+				lotSize = middle;
+			else
+				tooSmall = middle;
+		}
+
+		return lotSize;
+	}
+
+	private int curveSearch() {
+		var estimate = getEstimate();
+
+		var low = estimate.getLowerBound();
+		var high = estimate.getUpperBound();
+		var width = high - low + 1;
+
+		// smallest lot size known to be large enough, once the range has been moved
+		// below it
+		var largeEnough = -1;
+
 		while (true) {
-			System.out.println();
-			System.out.println("\n==== Setting lot capacity to: " + lotSize + "====");
-			var totalIncommingLength = 0;
+			var means = averageQueueLengths(low, high);
 
-			for (int i = 0; i < NUM_RUNS; i++) {
-				var simulator = new Simulator(new ParkingLot(lotSize), hourlyRate, 24 * 3600);
-				var now = System.currentTimeMillis();
-				simulator.simulate();
-				System.out.println("Simulation run " + (i + 1) + " (" + (System.currentTimeMillis() - now)
-						+ "ms); Queue length at the end of simulation run: "
-						+ simulator.getIncomingQueueSize());
-				totalIncommingLength += simulator.getIncomingQueueSize();
+			var first = -1;
+			for (int lotSize = low; lotSize <= high && first < 0; lotSize++)
+				if (means[lotSize - low] <= THRESHOLD)
+					first = lotSize;
+
+			if (first < 0 && largeEnough > 0)
+				return largeEnough;
+
+			if (first > low || first == 1)
+				return first;
+
+			width *= 2;
+
+			if (first < 0) {
+				// all too small; look above the range
+				low = high + 1;
+				high += width;
+			} else {
+				// all large enough; look below the range
+				largeEnough = first;
+				high = low - 1;
+				low = Math.max(1, high - width + 1);
 			}
+		}
+	}
+
+	/**
+	 * Computes the end-of-day queue of lot sizes low to high for every
+	 * replication, in one pass over its day (see CapacityCurve), and reports the
+	 * average of every lot size to the event sink
+	 *
+	 * @param low  is the smallest lot size
+	 * @param high is the largest lot size
+	 * @return the average length of the incoming queue at the end of a day, for
+	 *         lot sizes low to high
+	 */
+	private double[] averageQueueLengths(int low, int high) {
+		var queueLengths = new int[maxRuns][];
+		var futures = new Future<?>[maxRuns];
+
+		for (int i = 0; i < maxRuns; i++) {
+			ArrivalStream day = trace != null ? traceSegment(i) : samplePath(i);
+
+			final int run = i;
+			Runnable replication = () -> queueLengths[run] = CapacityCurve.queueLengths(day,
+					Simulator.SIMULATION_DURATION, low, high);
+
+			if (executor == null)
+				replication.run();
+			else
+				futures[i] = executor.submit(replication);
+		}
+
+		if (executor != null)
+			awaitAll(futures);
+
+		simulationsRun += maxRuns;
+
+		var means = new double[high - low + 1];
 
-			if (((1.0 * totalIncommingLength) / NUM_RUNS) <= THRESHOLD)
+		for (int lotSize = low; lotSize <= high; lotSize++) {
+			var mean = 0.0d;
+			var sumOfSquares = 0.0d;
+
+			for (int i = 0; i < maxRuns; i++) {
+				var delta = queueLengths[i][lotSize - low] - mean;
+				mean += delta / (i + 1);
+				sumOfSquares += delta * (queueLengths[i][lotSize - low] - mean);
+			}
+
+			var halfWidth = maxRuns > 1 ? tQuantile(maxRuns - 1) * Math.sqrt(sumOfSquares / (maxRuns - 1) / maxRuns)
+					: Double.POSITIVE_INFINITY;
+
+			candidatesEvaluated++;
+			eventSink.lotSizeCompleted(lotSize, maxRuns, mean, halfWidth);
+			means[lotSize - low] = mean;
+		}
+
+		return means;
+	}
+
+	/**
+	 * Simulates days of a lot with a given size until the lot size can be
+	 * decided on (see setRuns()). The streams of the replications are split, in
+	 * order, from a source seeded with the seed of the lot size, so that
+	 * replication i of a given lot size always uses the same stream, whichever
+	 * thread runs it and whichever lot sizes were simulated before.
+	 *
+	 * @param lotSize is the capacity of the lot
+	 * @return true if the average end-of-day queue of a lot with the given size is
+	 *         at most THRESHOLD
+	 */
+	private boolean isLargeEnough(int lotSize) {
+		eventSink.lotSizeStarted(lotSize);
+
+		candidatesEvaluated++;
+
+		if (simulators == null || simulators.length < maxRuns) {
+			simulators = new Simulator[maxRuns];
+			lots = new ParkingLot[maxRuns];
+			durations = new long[maxRuns];
+			recorders = new SimulationMetrics[maxRuns];
+
+			for (int i = 0; i < maxRuns; i++) {
+				lots[i] = new ParkingLot(0);
+				simulators[i] = new Simulator(lots[i], arrivalProfile, 24 * 3600);
+				recorders[i] = new SimulationMetrics(24 * 3600);
+			}
+		}
+
+		var random = randomSources.apply(lotSizeSeed(seed, lotSize));
+		warmedUp = warmup > 0 ? warmUp(lotSize, random.split()) : null;
+
+		// runs that share a warm-up are correlated, and their interval cannot be
+		// trusted to stop early
+		var firstBatch = warmedUp != null ? maxRuns : minRuns;
+
+		var started = 0;
+		var runs = 0;
+		var mean = 0.0d;
+		var sumOfSquares = 0.0d; // of the deviations from the mean
+		var halfWidth = Double.POSITIVE_INFINITY;
+
+		while (true) {
+			// with an executor, the runs after the first minRuns are started in
+			// batches; runs past the one that decides are wasted, not used
+			if (runs == started) {
+				var batch = started == 0 ? firstBatch : executor == null ? 1 : Math.min(minRuns, maxRuns - started);
+				replicate(lotSize, random, started, batch);
+				started += batch;
+			}
+
+			var queueLength = simulators[runs].getIncomingQueueSize();
+			eventSink.runCompleted(runs + 1, durations[runs], queueLength);
+
+			runs++;
+			var delta = queueLength - mean;
+			mean += delta / runs;
+			sumOfSquares += delta * (queueLength - mean);
+
+			if (runs < firstBatch)
+				continue;
+
+			if (runs > 1)
+				halfWidth = tQuantile(runs - 1) * Math.sqrt(sumOfSquares / (runs - 1) / runs);
+
+			if (runs == maxRuns || mean - halfWidth > THRESHOLD || mean + halfWidth <= THRESHOLD)
 				break;
+		}
 
-			lotSize++;
+		simulationsRun += runs;
+		eventSink.lotSizeCompleted(lotSize, runs, mean, halfWidth);
+
+		// runs past the one that decided are left out, as they are above
+		if (recordMetrics && mean <= THRESHOLD && (optimalMetrics == null || lotSize < optimalLotSize)) {
+			optimalMetrics = new SimulationMetrics(24 * 3600);
+			for (int i = 0; i < runs; i++)
+				optimalMetrics.merge(recorders[i]);
+
+			optimalLotSize = lotSize;
+			optimalRuns = runs;
 		}
 
-		return lotSize;
+		return mean <= THRESHOLD;
+	}
+
+	/**
+	 * Simulates replications first to first + count - 1 of a lot size, on the
+	 * executor if there is one
+	 *
+	 * @param lotSize is the capacity of the lot
+	 * @param random  is the source that the streams of the replications are split
+	 *                from
+	 * @param first   is the number of the first replication
+	 * @param count   is the number of replications
+	 */
+	private void replicate(int lotSize, RandomSource random, int first, int count) {
+		var futures = new Future<?>[count];
+
+		for (int i = first; i < first + count; i++) {
+			if (warmedUp != null)
+				simulators[i].restore(warmedUp);
+			else {
+				simulators[i].reset();
+				lots[i].setCapacity(lotSize);
+			}
+			simulators[i].setRandomSource(random.split());
+			simulators[i].setEngine(engine);
+			simulators[i].setArrivalStream(trace != null ? traceSegment(i) : commonRandomNumbers ? samplePath(i) : null);
+
+			recorders[i].reset();
+			if (warmedUp != null && warmupMetrics != null)
+				recorders[i].merge(warmupMetrics);
+			simulators[i].setMetrics(recordMetrics ? recorders[i] : null);
+
+			final int run = i;
+			Runnable replication = () -> {
+				var now = System.currentTimeMillis();
+				simulators[run].simulate();
+				durations[run] = System.currentTimeMillis() - now;
+			};
+
+			if (executor == null)
+				replication.run();
+			else
+				futures[i - first] = executor.submit(replication);
+		}
+
+		if (executor != null)
+			awaitAll(futures);
+	}
+
+	/**
+	 * Simulates the warm-up of a lot size (see setWarmup())
+	 *
+	 * @param lotSize is the capacity of the lot
+	 * @param random  is the random source of the warm-up
+	 * @return the state of the simulation at the end of the warm-up
+	 */
+	private SimulatorCheckpoint warmUp(int lotSize, RandomSource random) {
+		var simulator = new Simulator(new ParkingLot(lotSize), arrivalProfile, warmup, random);
+		simulator.setEngine(engine);
+
+		// recorded over the whole day, so that it can be added to the runs
+		warmupMetrics = recordMetrics ? new SimulationMetrics(24 * 3600) : null;
+		simulator.setMetrics(warmupMetrics);
+
+		simulator.simulate();
+		return simulator.checkpoint();
+	}
+
+	/**
+	 * @param run is the number of a replication
+	 * @return the day that replication run replays, rewound to its start
+	 */
+	private SamplePath samplePath(int run) {
+		if (samplePaths == null || samplePaths.length < maxRuns) {
+			var paths = new SamplePath[maxRuns];
+			if (samplePaths != null)
+				System.arraycopy(samplePaths, 0, paths, 0, samplePaths.length);
+			samplePaths = paths;
+		}
+
+		// replications start in order, so path i is always split i-th
+		if (samplePaths[run] == null)
+			samplePaths[run] = new SamplePath(arrivalProfile, Simulator.SIMULATION_DURATION, samplePathSource.split());
+
+		samplePaths[run].rewind();
+		return samplePaths[run];
+	}
+
+	/**
+	 * @param run is the number of a replication
+	 * @return the replay of the segment of trace of replication run, rewound to
+	 *         its start
+	 */
+	private MappedTrace traceSegment(int run) {
+		if (traceSegments == null || traceSegments.length < maxRuns) {
+			var segments = new MappedTrace[maxRuns];
+			if (traceSegments != null)
+				System.arraycopy(traceSegments, 0, segments, 0, traceSegments.length);
+			traceSegments = segments;
+		}
+
+		if (traceSegments[run] == null) {
+			try {
+				traceSegments[run] = new MappedTrace(trace, run);
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+
+		traceSegments[run].rewind();
+		return traceSegments[run];
+	}
+
+	private void closeTraceSegments() {
+		if (traceSegments == null)
+			return;
+
+		for (var segment : traceSegments) {
+			try {
+				if (segment != null)
+					segment.close();
+			} catch (IOException e) {
+				// nothing was written, so there is nothing to lose
+			}
+		}
+
+		traceSegments = null;
+	}
+
+	/**
+	 * @param degreesOfFreedom is a positive number of degrees of freedom
+	 * @return the 97.5% quantile of Student's t distribution
+	 */
+	private static double tQuantile(int degreesOfFreedom) {
+		if (degreesOfFreedom <= T_QUANTILES.length)
+			return T_QUANTILES[degreesOfFreedom - 1];
+
+		return Z_QUANTILE;
+	}
+
+	private static void awaitAll(Future<?>[] futures) {
+		for (var future : futures) {
+			try {
+				future.get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IllegalStateException("Interrupted while waiting for a simulation run", e);
+			} catch (ExecutionException e) {
+				throw new IllegalStateException("Simulation run failed", e.getCause());
+			}
+		}
+	}
+
+	/**
+	 * @return the seed of the replications of a given lot size, obtained by
+	 *         scrambling the two values with the SplitMix64 finalizer so that
+	 *         neighbouring lot sizes get unrelated streams
+	 */
+	private static long lotSizeSeed(long seed, int lotSize) {
+		return mix(seed + lotSize * 0x9E3779B97F4A7C15L);
+	}
+
+	private static long mix(long z) {
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+
+	/**
+	 * @return an executor that starts a virtual thread per task, or null when the
+	 *         running JVM does not support virtual threads (before Java 21)
+	 */
+	private static ExecutorService newVirtualThreadExecutor() {
+		try {
+			return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+		} catch (ReflectiveOperationException e) {
+			return null;
+		}
 	}
 
 	public static void main(String args[]) {
@@ -41,23 +964,203 @@ public class CapacityOptimizer {
 		long mainStart = System.currentTimeMillis();
 
 		if (args.length < 1) {
-			System.out.println("Usage: java CapacityOptimizer <hourly rate of arrival>");
-			System.out.println("Example: java CapacityOptimizer 11");
+			System.out.println("Usage: java CapacityOptimizer <hourly rate of arrival>|<profile file> [options]");
+			System.out.println("Options: --engine=steps|events|vector    simulation engine (default: steps)");
+			System.out.println("         --threads=<n>|virtual           run the replications concurrently");
+			System.out.println("         --seed=<n>                      seed for reproducible results");
+			System.out.println("         --rng=splittable|xoroshiro|jdk  random generator (default: splittable)");
+			System.out.println("         --search=linear|galloping|bounded|curve");
+			System.out.println("                                         lot size search (default: linear)");
+			System.out.println("         --runs=<n>|<min>-<max>          runs per lot size, fixed or sequential");
+			System.out.println("                                         (default: " + NUM_RUNS + ")");
+			System.out.println("         --crn                           same days for all lot sizes (needs events)");
+			System.out.println("         --record=<file>                 write the days of --crn to a trace and exit");
+			System.out.println("         --trace=<file>                  replay the days of a trace (needs events)");
+			System.out.println("         --warmup=<hours>                runs of a lot size share their first hours");
+			System.out.println("         --metrics                       print waits, occupancy and hourly counts");
+			System.out.println("         --quiet                         do not print every simulation run");
+			System.out.println("Example: java CapacityOptimizer 11 --engine=events --threads=8");
+			System.out.println("A profile file lists the hourly rates of equal parts of the day (e.g., 24 or 96),");
+			System.out.println("separated by commas or line breaks; lines starting with # are ignored.");
 			return;
 		}
 
-		if (!args[0].matches("\\d+")) {
-			System.out.println("The hourly rate of arrival should be a positive integer!");
+		ArrivalProfile arrivalProfile;
+
+		if (args[0].matches("\\d+"))
+			arrivalProfile = ArrivalProfile.constant(Integer.parseInt(args[0]));
+
+		else if (new File(args[0]).isFile()) {
+			try {
+				arrivalProfile = ArrivalProfile.load(args[0]);
+			} catch (FileNotFoundException | IllegalArgumentException e) {
+				System.out.println("Could not load the arrival profile: " + e.getMessage());
+				return;
+			}
+
+		} else {
+			System.out.println("The hourly rate of arrival should be a positive integer or a profile file!");
 			return;
 		}
 
-		int hourlyRate = Integer.parseInt(args[0]);
+		var optimizer = new CapacityOptimizer(arrivalProfile);
+		ExecutorService executor = null;
+		var quiet = false;
+		Path record = null;
+
+		for (int i = 1; i < args.length; i++) {
+			String option = args[i];
+
+			if (option.equals("--engine=steps"))
+				optimizer.setEngine(SimulationEngine.TIME_STEPPED);
+
+			else if (option.equals("--engine=events"))
+				optimizer.setEngine(SimulationEngine.EVENT_DRIVEN);
+
+			else if (option.equals("--engine=vector"))
+				optimizer.setEngine(SimulationEngine.VECTORIZED);
+
+			else if (option.equals("--threads=virtual")) {
+				executor = newVirtualThreadExecutor();
+				if (executor == null) {
+					System.out.println("Virtual threads require Java 21 or later!");
+					return;
+				}
+
+			} else if (option.matches("--threads=[1-9]\\d*"))
+				executor = new ForkJoinPool(Integer.parseInt(option.substring("--threads=".length())));
+
+			else if (option.equals("--search=linear"))
+				optimizer.setSearchMode(SearchMode.LINEAR);
+
+			else if (option.equals("--search=galloping"))
+				optimizer.setSearchMode(SearchMode.GALLOPING);
+
+			else if (option.equals("--search=bounded"))
+				optimizer.setSearchMode(SearchMode.BOUNDED);
+
+			else if (option.equals("--search=curve"))
+				optimizer.setSearchMode(SearchMode.CURVE);
+
+			else if (option.equals("--rng=splittable"))
+				optimizer.setRandomSources(SplittableRandomSource::new);
 
-		int lotSize = getOptimalNumberOfSpots(hourlyRate);
+			else if (option.equals("--rng=xoroshiro"))
+				optimizer.setRandomSources(XoroshiroRandomSource::new);
+
+			else if (option.equals("--rng=jdk"))
+				optimizer.setRandomSources(seed -> new JdkRandomSource(new Random(seed)));
+
+			else if (option.equals("--crn"))
+				optimizer.setCommonRandomNumbers(true);
+
+			else if (option.startsWith("--trace=") && option.length() > "--trace=".length())
+				optimizer.setTrace(Path.of(option.substring("--trace=".length())));
+
+			else if (option.startsWith("--record=") && option.length() > "--record=".length())
+				record = Path.of(option.substring("--record=".length()));
+
+			else if (option.matches("--runs=[1-9]\\d*(-[1-9]\\d*)?")) {
+				var bounds = option.substring("--runs=".length()).split("-");
+				try {
+					var min = Integer.parseInt(bounds[0]);
+					optimizer.setRuns(min, bounds.length == 1 ? min : Integer.parseInt(bounds[1]));
+				} catch (IllegalArgumentException e) {
+					System.out.println("Invalid number of runs: " + e.getMessage());
+					return;
+				}
+
+			} else if (option.matches("--warmup=\\d{1,2}")) {
+				var hours = Integer.parseInt(option.substring("--warmup=".length()));
+				try {
+					optimizer.setWarmup(hours * Simulator.NUM_SECONDS_IN_1H);
+				} catch (IllegalArgumentException e) {
+					System.out.println("Invalid warm-up: " + e.getMessage());
+					return;
+				}
+
+			} else if (option.equals("--metrics"))
+				optimizer.setRecordMetrics(true);
+
+			else if (option.equals("--quiet"))
+				quiet = true;
+
+			else if (option.matches("--seed=-?\\d+"))
+				optimizer.setSeed(Long.parseLong(option.substring("--seed=".length())));
+
+			else {
+				System.out.println("Unknown option: " + option);
+				return;
+			}
+		}
+
+		optimizer.setExecutor(executor);
+
+		System.out.println("Random seed: " + optimizer.getSeed());
+
+		if (arrivalProfile.getNumBins() > 1)
+			System.out.println("Arrival profile: " + arrivalProfile + " ("
+					+ Math.round(arrivalProfile.expectedArrivals(Simulator.SIMULATION_DURATION)) + " cars/day expected)");
+
+		System.out.println("Estimate: " + optimizer.getEstimate());
+
+		if (record != null) {
+			try {
+				optimizer.recordTrace(record);
+			} catch (IOException e) {
+				System.out.println("Could not write the trace: " + e.getMessage());
+				return;
+			}
+
+			System.out.println("Recorded " + optimizer.getMaxRuns() + " days to " + record);
+			return;
+		}
+
+		if ((optimizer.getCommonRandomNumbers() || optimizer.getTrace() != null)
+				&& optimizer.getEngine() != SimulationEngine.EVENT_DRIVEN
+				&& optimizer.getSearchMode() != SearchMode.CURVE) {
+			System.out.println("Common random numbers and traces require --engine=events!");
+			return;
+		}
+
+		if (optimizer.getWarmup() > 0 && (optimizer.getCommonRandomNumbers() || optimizer.getTrace() != null
+				|| optimizer.getSearchMode() == SearchMode.CURVE)) {
+			System.out.println("--warmup cannot be combined with --crn, --trace or --search=curve!");
+			return;
+		}
+
+		if (optimizer.getEngine() == SimulationEngine.VECTORIZED)
+			System.out.println("Departure sweep: " + Simulator.newDepartureSweep());
+
+		var eventSink = new AsyncEventSink(System.out);
+		if (!quiet)
+			optimizer.setEventSink(eventSink);
+
+		int lotSize;
+
+		try {
+			lotSize = optimizer.findOptimalNumberOfSpots();
+		} catch (UncheckedIOException | IllegalArgumentException e) {
+			// the trace cannot be replayed
+			System.out.println("Could not replay the trace: " + e.getMessage());
+			return;
+		} finally {
+			eventSink.close();
+			if (executor != null)
+				executor.shutdown();
+		}
 
 		System.out.println();
 		System.out.println("SIMULATION IS COMPLETE!");
 		System.out.println("The smallest number of parking spots required: " + lotSize);
+		System.out.println("Lot sizes simulated: " + optimizer.getCandidatesEvaluated() + " ("
+				+ optimizer.getSimulationsRun() + " simulation runs)");
+
+		if (optimizer.getMetrics() != null) {
+			System.out.println();
+			System.out.println("Metrics of " + lotSize + " spots, added up over " + optimizer.getMetricsRuns() + " runs:");
+			System.out.print(optimizer.getMetrics());
+		}
 
 		long mainEnd = System.currentTimeMillis();
 
@@ -1,21 +1,31 @@
 /**
- * @author Mehrdad Sabetzadeh, University of Ottawa
- * 
- *         The implementation of this class is complete. You do *not* need to
- *         change this class in this assignment.
+ * A car, identified by its plate number. A plate number that fits in an int is
+ * kept in packed form (see RandomGenerator.encodePlate()) and only rendered as
+ * a String when it is first asked for.
  * 
+ * @author Mehrdad Sabetzadeh, University of Ottawa
  */
 public class Car {
 
 	/**
-	 * Instance variable for storing the car plate number
+	 * Instance variable for storing the car plate number; null until the plate
+	 * of a car created from a plate code is first asked for
 	 */
 	private String plateNum;
 
+	/**
+	 * The plate number packed into an int (see RandomGenerator.encodePlate()), or
+	 * -1 if the plate number cannot be packed
+	 */
+	private int plateCode;
+
 	/**
 	 * @return the plate number
 	 */
 	public String getPlateNum() {
+		if (plateNum == null && plateCode >= 0)
+			plateNum = RandomGenerator.decodePlate(plateCode);
+
 		return plateNum;
 	}
 
@@ -26,6 +36,29 @@ public class Car {
 	 */
 	public void setPlateNum(String plateNum) {
 		this.plateNum = plateNum;
+		this.plateCode = plateNum == null ? -1 : RandomGenerator.encodePlate(plateNum);
+	}
+
+	/**
+	 * @return the plate number packed into an int, or -1 if the plate number
+	 *         cannot be packed
+	 */
+	public int getPlateCode() {
+		return plateCode;
+	}
+
+	/**
+	 * Sets the car plate number from its packed form. The plate number is only
+	 * rendered as a String when getPlateNum() is called.
+	 * 
+	 * @param plateCode is the packed plate number
+	 */
+	public void setPlateCode(int plateCode) {
+		if (plateCode < 0)
+			throw new IllegalArgumentException("Plate code must be non-negative.");
+
+		this.plateCode = plateCode;
+		this.plateNum = null;
 	}
 
 	/**
@@ -35,13 +68,22 @@ public class Car {
 	 * @param plateNum is the car plate number
 	 */
 	public Car(String plateNum) {
-		this.plateNum = plateNum;
+		setPlateNum(plateNum);
+	}
+
+	/**
+	 * Constructor for Car
+	 * 
+	 * @param plateCode is the car plate number, packed into an int
+	 */
+	public Car(int plateCode) {
+		setPlateCode(plateCode);
 	}
 
 	/**
 	 * Returns a string representation of the car
 	 */
 	public String toString() {
-		return "Plate:  " + plateNum;
+		return "Plate:  " + getPlateNum();
 	}
 }
\ No newline at end of file
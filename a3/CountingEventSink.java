@@ -0,0 +1,68 @@
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * An event sink that only counts events. It can be shared by simulations that
+ * run concurrently.
+ */
+public class CountingEventSink implements EventSink {
+
+	private LongAdder entered = new LongAdder();
+	private LongAdder exited = new LongAdder();
+	private LongAdder lotSizes = new LongAdder();
+	private LongAdder runs = new LongAdder();
+
+	public void carEntered(Car car, int timestamp, int occupancy) {
+		entered.increment();
+	}
+
+	public void carExited(Car car, int timestamp, int occupancy) {
+		exited.increment();
+	}
+
+	public void lotSizeStarted(int lotSize) {
+		lotSizes.increment();
+	}
+
+	public void runCompleted(int run, long millis, int queueLength) {
+		runs.increment();
+	}
+
+	public void lotSizeCompleted(int lotSize, int runs, double meanQueueLength, double halfWidth) {
+	}
+
+	/**
+	 * @return the number of cars that entered the lot so far
+	 */
+	public long getEntered() {
+		return entered.sum();
+	}
+
+	/**
+	 * @return the number of cars that left the lot so far
+	 */
+	public long getExited() {
+		return exited.sum();
+	}
+
+	/**
+	 * @return the number of lot sizes simulated so far
+	 */
+	public long getLotSizes() {
+		return lotSizes.sum();
+	}
+
+	/**
+	 * @return the number of simulation runs completed so far
+	 */
+	public long getRuns() {
+		return runs.sum();
+	}
+
+	/**
+	 * Returns a string representation of the counts
+	 */
+	public String toString() {
+		return "Entered: " + getEntered() + ", exited: " + getExited() + ", lot sizes: " + getLotSizes()
+				+ ", runs: " + getRuns();
+	}
+}
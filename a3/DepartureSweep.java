@@ -0,0 +1,21 @@
+/**
+ * Decides, for all the cars parked in a lot at once, which ones leave during
+ * the current (simulated) second of a time-stepped simulation. A car that has
+ * been parked for d seconds leaves with probability thresholds[d] / 2^32 (the
+ * thresholds are unsigned 32-bit values, see RandomGenerator.threshold()), and
+ * leaves for sure once d exceeds thresholds.length - 1.
+ */
+public interface DepartureSweep {
+
+	/**
+	 * @param timestamps holds the parking times of the cars at positions 0 to
+	 *                   count - 1
+	 * @param count      is the number of parked cars
+	 * @param clock      is the current (simulated) time
+	 * @param random     is the source of randomness; implementations draw from it
+	 *                   in the same way, so that they make the same decisions
+	 * @param leaves     receives, at positions 0 to count - 1, true for the cars
+	 *                   that leave and false for the others
+	 */
+	void markDepartures(int[] timestamps, int count, int clock, RandomSource random, boolean[] leaves);
+}
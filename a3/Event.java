@@ -0,0 +1,73 @@
+/**
+ * A simulation event scheduled at a given (simulated) time. Events scheduled
+ * at the same time are processed in the order ARRIVAL, DEPARTURE, ENTRY, which
+ * is the order in which the time-stepped engine handles them within a second.
+ */
+public class Event {
+
+	/**
+	 * A car shows up in front of the lot
+	 */
+	public static final int ARRIVAL = 0;
+
+	/**
+	 * A parked car leaves the lot
+	 */
+	public static final int DEPARTURE = 1;
+
+	/**
+	 * The car at the front of the incoming queue tries to enter the lot
+	 */
+	public static final int ENTRY = 2;
+
+	private int time;
+	private int type;
+	private Spot spot;
+
+	public int getTime() {
+		return time;
+	}
+
+	public int getType() {
+		return type;
+	}
+
+	/**
+	 * @return the spot that a DEPARTURE event frees, or null for other events
+	 */
+	public Spot getSpot() {
+		return spot;
+	}
+
+	public Event(int time, int type, Spot spot) {
+		set(time, type, spot);
+	}
+
+	/**
+	 * Turns this event into another one, so that processed events can be reused
+	 * (see EventQueue.recycle())
+	 */
+	void set(int time, int type, Spot spot) {
+		this.time = time;
+		this.type = type;
+		this.spot = spot;
+	}
+
+	/**
+	 * @param other is the event to compare with
+	 * @return true if this event has to be processed before the other one
+	 */
+	public boolean isBefore(Event other) {
+		if (time != other.time)
+			return time < other.time;
+
+		return type < other.type;
+	}
+
+	/**
+	 * Returns a string representation of the event
+	 */
+	public String toString() {
+		return "Event(type: " + type + ", time: " + time + ")";
+	}
+}
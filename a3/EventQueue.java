@@ -0,0 +1,135 @@
+/**
+ * A time-ordered queue of simulation events, implemented as an array-based
+ * binary min-heap. dequeue() and peek() always return the event that has to be
+ * processed next (see Event.isBefore()); enqueue() and dequeue() take
+ * logarithmic time.
+ *
+ * Events that have been processed can be handed back through recycle(); the
+ * enqueue(int, int, Spot) overload reuses them, so that a simulation that
+ * schedules its events that way does not allocate one per event.
+ */
+public class EventQueue implements Queue<Event> {
+
+	private static final int INITIAL_CAPACITY = 16;
+
+	private Event[] heap;
+	private int size;
+
+	// processed events available for reuse
+	private Event[] free;
+	private int numFree;
+
+	public EventQueue() {
+		heap = new Event[INITIAL_CAPACITY];
+		size = 0;
+		free = new Event[INITIAL_CAPACITY];
+		numFree = 0;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	public void enqueue(Event newElement) {
+
+		if (newElement == null)
+			throw new NullPointerException("no null object in my queue !");
+
+		if (size == heap.length) {
+			Event[] larger = new Event[2 * heap.length];
+			System.arraycopy(heap, 0, larger, 0, size);
+			heap = larger;
+		}
+
+		// sift up
+		int i = size++;
+		while (i > 0) {
+			int parent = (i - 1) / 2;
+			if (!newElement.isBefore(heap[parent]))
+				break;
+			heap[i] = heap[parent];
+			i = parent;
+		}
+		heap[i] = newElement;
+	}
+
+	/**
+	 * Schedules an event, reusing a recycled Event object if there is one
+	 * 
+	 * @param time is the (simulated) time of the event
+	 * @param type is the type of the event (Event.ARRIVAL, ...)
+	 * @param spot is the spot that a DEPARTURE event frees, or null
+	 */
+	public void enqueue(int time, int type, Spot spot) {
+		Event event;
+
+		if (numFree == 0)
+			event = new Event(time, type, spot);
+		else {
+			event = free[--numFree];
+			free[numFree] = null;
+			event.set(time, type, spot);
+		}
+
+		enqueue(event);
+	}
+
+	/**
+	 * Hands a dequeued event back for reuse. The event must no longer be used by
+	 * the caller.
+	 * 
+	 * @param event is the event to recycle
+	 */
+	public void recycle(Event event) {
+
+		if (event == null)
+			throw new NullPointerException("Event cannot be null");
+
+		if (numFree == free.length) {
+			Event[] larger = new Event[2 * free.length];
+			System.arraycopy(free, 0, larger, 0, numFree);
+			free = larger;
+		}
+
+		event.set(0, Event.ARRIVAL, null);
+		free[numFree++] = event;
+	}
+
+	public Event dequeue() {
+
+		if (isEmpty())
+			throw new IllegalStateException("Dequeue method called on an empty queue");
+
+		Event returnedValue = heap[0];
+		Event last = heap[--size];
+		heap[size] = null;
+
+		// sift down
+		if (size > 0) {
+			int i = 0;
+			while (2 * i + 1 < size) {
+				int child = 2 * i + 1;
+				if (child + 1 < size && heap[child + 1].isBefore(heap[child]))
+					child++;
+				if (!heap[child].isBefore(last))
+					break;
+				heap[i] = heap[child];
+				i = child;
+			}
+			heap[i] = last;
+		}
+
+		return returnedValue;
+	}
+
+	public Event peek() {
+		if (isEmpty())
+			throw new IllegalStateException("Cannot peek from an empty queue");
+
+		return heap[0];
+	}
+
+	public int size() {
+		return size;
+	}
+}
@@ -0,0 +1,45 @@
+/**
+ * Receives the events of a simulation and of a capacity optimization. Callers
+ * pass raw values only; turning them into text, if at all, is up to the sink,
+ * so that nothing is formatted when events are not logged.
+ */
+public interface EventSink {
+
+	/**
+	 * @param car       is the car that entered the lot
+	 * @param timestamp is the (simulated) time of the event
+	 * @param occupancy is the number of cars in the lot after the event
+	 */
+	void carEntered(Car car, int timestamp, int occupancy);
+
+	/**
+	 * @param car       is the car that left the lot
+	 * @param timestamp is the (simulated) time of the event
+	 * @param occupancy is the number of cars in the lot after the event
+	 */
+	void carExited(Car car, int timestamp, int occupancy);
+
+	/**
+	 * @param lotSize is the lot size that the optimizer starts simulating
+	 */
+	void lotSizeStarted(int lotSize);
+
+	/**
+	 * @param run         is the number of the simulation run (starting at 1)
+	 * @param millis      is the (wall-clock) duration of the run in milliseconds
+	 * @param queueLength is the length of the incoming queue at the end of the run
+	 */
+	void runCompleted(int run, long millis, int queueLength);
+
+	/**
+	 * @param lotSize         is the lot size that the optimizer finished
+	 *                        simulating
+	 * @param runs            is the number of simulation runs that the decision
+	 *                        is based on
+	 * @param meanQueueLength is the average length of the incoming queue at the
+	 *                        end of these runs
+	 * @param halfWidth       is the half-width of the 95% confidence interval on
+	 *                        the mean queue length (infinite for a single run)
+	 */
+	void lotSizeCompleted(int lotSize, int runs, double meanQueueLength, double halfWidth);
+}
@@ -5,10 +5,6 @@
  * 
  */
 
-// TODO:
-// 1) keep track of size and implement a size() method
-// 2) write a peek method
-
 public class LinkedQueue<D> implements Queue<D> {
 
 	private static class Elem<T> {
@@ -23,9 +19,11 @@ public class LinkedQueue<D> implements Queue<D> {
 
 	private Elem<D> front;
 	private Elem<D> rear;
+	private int size;
 
 	public LinkedQueue() {
 		front = rear = null;
+		size = 0;
 	}
 
 	public boolean isEmpty() {
@@ -46,6 +44,7 @@ public class LinkedQueue<D> implements Queue<D> {
 			rear.next = newElem;
 			rear = newElem;
 		}
+		size++;
 	}
 
 	public D dequeue() {
@@ -61,6 +60,7 @@ public class LinkedQueue<D> implements Queue<D> {
 		else
 			front = front.next;
 
+		size--;
 		return returnedValue;
 	}
 
@@ -72,15 +72,7 @@ public class LinkedQueue<D> implements Queue<D> {
 	}
 
 	public int size() {
-		int count = 0;
-		if (front != null) {
-			Elem<D> current = front;
-			while (current != null) {
-				count++;
-				current = current.next;
-			}
-		}
-		return count;
+		return size;
 	}
 
 	public String toString() {
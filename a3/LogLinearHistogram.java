@@ -0,0 +1,203 @@
+/**
+ * A histogram of non-negative int values in a fixed number of buckets. Values
+ * below SUB_BUCKETS have a bucket each; every larger range [2^k, 2^(k+1)) is
+ * split into SUB_BUCKETS buckets of equal width. A value is therefore known to
+ * within 1/SUB_BUCKETS of itself (about 3%), whatever its magnitude, and the
+ * histogram takes the same 7 KB however many values it records. Recording a
+ * value allocates nothing.
+ *
+ * Values can be recorded with a count, e.g., the time during which a quantity
+ * held a value, which makes the histogram time-weighted. Histograms are added
+ * up with merge().
+ */
+public class LogLinearHistogram {
+
+	private static final int SUB_BUCKET_BITS = 5;
+
+	/**
+	 * Number of buckets per power of two
+	 */
+	public static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+	/**
+	 * Number of buckets needed for all the non-negative int values
+	 */
+	private static final int NUM_BUCKETS = (32 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+	private long[] counts;
+	private long totalCount;
+
+	/**
+	 * Sum of the recorded values, each times its count
+	 */
+	private double sum;
+
+	private int min;
+	private int max;
+
+	public LogLinearHistogram() {
+		counts = new long[NUM_BUCKETS];
+		reset();
+	}
+
+	/**
+	 * Records a value once
+	 *
+	 * @param value is the value, non-negative
+	 */
+	public void record(int value) {
+		record(value, 1);
+	}
+
+	/**
+	 * Records a value a number of times
+	 *
+	 * @param value is the value, non-negative
+	 * @param count is the number of times (or the time during which) the value
+	 *              occurred, non-negative
+	 */
+	public void record(int value, long count) {
+		if (value < 0 || count < 0)
+			throw new IllegalArgumentException("Values and counts must be non-negative.");
+
+		if (count == 0)
+			return;
+
+		counts[bucket(value)] += count;
+		totalCount += count;
+		sum += (double) value * count;
+
+		if (value < min)
+			min = value;
+		if (value > max)
+			max = value;
+	}
+
+	/**
+	 * Adds the values recorded by another histogram to this one
+	 *
+	 * @param other is the other histogram
+	 */
+	public void merge(LogLinearHistogram other) {
+		if (other == null)
+			throw new NullPointerException("Histogram cannot be null");
+
+		for (int i = 0; i < NUM_BUCKETS; i++)
+			counts[i] += other.counts[i];
+
+		totalCount += other.totalCount;
+		sum += other.sum;
+		min = Math.min(min, other.min);
+		max = Math.max(max, other.max);
+	}
+
+	/**
+	 * @return a histogram with the same values as this one
+	 */
+	public LogLinearHistogram copy() {
+		var copy = new LogLinearHistogram();
+		copy.merge(this);
+		return copy;
+	}
+
+	/**
+	 * Forgets all the recorded values
+	 */
+	public void reset() {
+		for (int i = 0; i < NUM_BUCKETS; i++)
+			counts[i] = 0;
+
+		totalCount = 0;
+		sum = 0.0d;
+		min = Integer.MAX_VALUE;
+		max = 0;
+	}
+
+	/**
+	 * @return the number of recorded values (the sum of their counts)
+	 */
+	public long getCount() {
+		return totalCount;
+	}
+
+	/**
+	 * @return the exact mean of the recorded values, or NaN if there are none
+	 */
+	public double getMean() {
+		return totalCount == 0 ? Double.NaN : sum / totalCount;
+	}
+
+	/**
+	 * @return the smallest recorded value, or 0 if there are none
+	 */
+	public int getMin() {
+		return totalCount == 0 ? 0 : min;
+	}
+
+	/**
+	 * @return the largest recorded value, or 0 if there are none
+	 */
+	public int getMax() {
+		return max;
+	}
+
+	/**
+	 * @param quantile is a number between 0 and 1, e.g., 0.95
+	 * @return the largest value of the bucket that holds the given quantile of
+	 *         the recorded values (at most getMax()), or 0 if there are none
+	 */
+	public int getValueAtQuantile(double quantile) {
+		if (!(quantile >= 0.0d && quantile <= 1.0d))
+			throw new IllegalArgumentException("Quantile must be between 0 and 1");
+
+		if (totalCount == 0)
+			return 0;
+
+		// the smallest bucket below which at least quantile of the values lie
+		long rank = Math.max(1, (long) Math.ceil(quantile * totalCount));
+		long seen = 0;
+
+		for (int i = 0; i < NUM_BUCKETS; i++) {
+			seen += counts[i];
+			if (seen >= rank)
+				return Math.min(highestValue(i), max);
+		}
+
+		return max;
+	}
+
+	public String toString() {
+		if (totalCount == 0)
+			return "no values";
+
+		return String.format("mean %.1f, p50 %d, p95 %d, p99 %d, max %d", getMean(), getValueAtQuantile(0.5),
+				getValueAtQuantile(0.95), getValueAtQuantile(0.99), max);
+	}
+
+	/**
+	 * @param value is a non-negative value
+	 * @return the index of the bucket of the value
+	 */
+	private static int bucket(int value) {
+		if (value < SUB_BUCKETS)
+			return value;
+
+		// the SUB_BUCKET_BITS bits below the highest one pick the bucket within
+		// the power of two
+		int shift = 31 - Integer.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+		return (shift + 1) * SUB_BUCKETS + (value >>> shift) - SUB_BUCKETS;
+	}
+
+	/**
+	 * @param bucket is the index of a bucket
+	 * @return the largest value that falls into the bucket
+	 */
+	private static int highestValue(int bucket) {
+		if (bucket < SUB_BUCKETS)
+			return bucket;
+
+		int shift = bucket / SUB_BUCKETS - 1;
+		long lowest = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+		return (int) (lowest + (1L << shift) - 1);
+	}
+}
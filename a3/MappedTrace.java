@@ -0,0 +1,244 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Replays one segment of an arrival trace (see TraceWriter). The records are
+ * decoded straight from read-only memory-mapped windows of the file, so a
+ * trace is never copied onto the heap, and traces of many weeks are streamed
+ * through windows of at most WINDOW_BYTES.
+ * 
+ * The arrivals (with their plates) and the stays are read through separate
+ * windows, since the stay of a car is only asked for when the car parks,
+ * which may be long after later cars have arrived.
+ */
+public class MappedTrace implements ArrivalStream, AutoCloseable {
+
+	/**
+	 * Largest part of the file mapped by each window
+	 */
+	private static final int WINDOW_BYTES = 1 << 24;
+
+	private FileChannel channel;
+
+	private int steps;
+	private int segments;
+	private int cars;
+
+	/**
+	 * File positions of the first record and of the end of the segment
+	 */
+	private long start;
+	private long end;
+
+	private Window arrivals;
+	private Window stays;
+
+	private int arrivalsRead;
+	private int staysRead;
+	private int time;
+
+	/**
+	 * Whether the next arrival has been decoded (into pendingTime and
+	 * pendingPlate) but not handed out, because it is past the limit
+	 */
+	private boolean pending;
+	private int pendingTime;
+	private int pendingPlate;
+	private int plateCode;
+
+	/**
+	 * @param file    is the trace file
+	 * @param segment is the number of the segment to replay, starting at 0
+	 * @throws IOException              if the file cannot be read
+	 * @throws IllegalArgumentException if the file is not a trace or does not
+	 *                                  have the segment
+	 */
+	public MappedTrace(Path file, int segment) throws IOException {
+		this.channel = FileChannel.open(file, StandardOpenOption.READ);
+
+		try {
+			ByteBuffer header = read(0, TraceWriter.HEADER_BYTES);
+
+			if (header.getInt() != TraceWriter.MAGIC || header.getInt() != TraceWriter.VERSION)
+				throw new IllegalArgumentException(file + " is not an arrival trace");
+
+			this.steps = header.getInt();
+			this.segments = header.getInt();
+
+			if (segment < 0 || segment >= segments)
+				throw new IllegalArgumentException(file + " has " + segments + " segments, not " + (segment + 1));
+
+			// skip the segments before the one to replay
+			long position = TraceWriter.HEADER_BYTES;
+			for (int i = 0;; i++) {
+				ByteBuffer segmentHeader = read(position, TraceWriter.SEGMENT_HEADER_BYTES);
+				int segmentCars = segmentHeader.getInt();
+				long recordBytes = segmentHeader.getLong();
+
+				position += TraceWriter.SEGMENT_HEADER_BYTES;
+
+				if (segmentCars < 0 || recordBytes < 0 || position + recordBytes > channel.size())
+					throw new IllegalArgumentException(file + " is truncated or corrupt");
+
+				if (i == segment) {
+					this.cars = segmentCars;
+					this.start = position;
+					this.end = position + recordBytes;
+					break;
+				}
+
+				position += recordBytes;
+			}
+		} catch (IOException | RuntimeException e) {
+			channel.close();
+			throw e;
+		}
+
+		this.arrivals = new Window();
+		this.stays = new Window();
+		rewind();
+	}
+
+	/**
+	 * @return the length of every segment of the trace in (simulated) seconds
+	 */
+	public int getSteps() {
+		return steps;
+	}
+
+	/**
+	 * @return the number of segments of the trace
+	 */
+	public int getSegments() {
+		return segments;
+	}
+
+	/**
+	 * @return the number of cars that arrive in the replayed segment
+	 */
+	public int size() {
+		return cars;
+	}
+
+	/**
+	 * Starts the replay over from the first arrival of the segment
+	 */
+	public void rewind() {
+		arrivals.seek(start);
+		stays.seek(start);
+		arrivalsRead = 0;
+		staysRead = 0;
+		time = -1;
+		pending = false;
+	}
+
+	public int nextArrival(int time, int limit) {
+		if (!pending) {
+			if (arrivalsRead == cars)
+				return limit;
+
+			pendingTime = this.time + arrivals.readVarint();
+			pendingPlate = arrivals.readVarint();
+			arrivals.readVarint(); // the stay is read through the other window
+			pending = true;
+		}
+
+		if (pendingTime >= limit)
+			return limit;
+
+		pending = false;
+		arrivalsRead++;
+		this.time = pendingTime;
+		plateCode = pendingPlate;
+		return pendingTime;
+	}
+
+	public int nextPlateCode() {
+		if (arrivalsRead == 0)
+			throw new IllegalStateException("No car has arrived yet");
+
+		return plateCode;
+	}
+
+	public int nextStay() {
+		if (staysRead == arrivalsRead)
+			throw new IllegalStateException("No more cars have arrived");
+
+		stays.readVarint();
+		stays.readVarint();
+		staysRead++;
+		return stays.readVarint();
+	}
+
+	/**
+	 * Closes the file; the mapped windows are released once they are no longer
+	 * referenced
+	 */
+	public void close() throws IOException {
+		channel.close();
+	}
+
+	private ByteBuffer read(long position, int length) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(length);
+
+		while (buffer.hasRemaining())
+			if (channel.read(buffer, position + buffer.position()) < 0)
+				throw new IllegalArgumentException("Trace is truncated");
+
+		return buffer.flip();
+	}
+
+	/**
+	 * A read cursor over the records of the segment, through a mapped window that
+	 * is moved forward when fewer than a full record's bytes are left in it
+	 */
+	private class Window {
+		private MappedByteBuffer buffer;
+
+		/**
+		 * File position of the first byte of buffer
+		 */
+		private long base;
+
+		void seek(long position) {
+			if (buffer != null && position >= base && position <= base + buffer.limit())
+				buffer.position((int) (position - base));
+			else
+				map(position);
+		}
+
+		int readVarint() {
+			if (buffer.remaining() < TraceWriter.MAX_RECORD_BYTES && base + buffer.limit() < end)
+				map(base + buffer.position());
+
+			int value = 0;
+
+			for (int shift = 0; shift < 35; shift += 7) {
+				if (!buffer.hasRemaining())
+					throw new IllegalStateException("Trace is truncated");
+
+				byte b = buffer.get();
+				value |= (b & 0x7F) << shift;
+
+				if (b >= 0)
+					return value;
+			}
+
+			throw new IllegalStateException("Trace is corrupt");
+		}
+
+		private void map(long position) {
+			try {
+				base = position;
+				buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(WINDOW_BYTES, end - position));
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+	}
+}
@@ -0,0 +1,20 @@
+/**
+ * An event sink that ignores all events.
+ */
+public class NullEventSink implements EventSink {
+
+	public void carEntered(Car car, int timestamp, int occupancy) {
+	}
+
+	public void carExited(Car car, int timestamp, int occupancy) {
+	}
+
+	public void lotSizeStarted(int lotSize) {
+	}
+
+	public void runCompleted(int run, long millis, int queueLength) {
+	}
+
+	public void lotSizeCompleted(int lotSize, int runs, double meanQueueLength, double halfWidth) {
+	}
+}
@@ -0,0 +1,204 @@
+/**
+ * The cars parked in a lot, stored as parallel arrays: entry k of each array
+ * describes the car at position k. Positions are dense (0 to size() - 1);
+ * removing a car moves the last car into the freed position. A departure
+ * sweep that only needs the parking times therefore reads one contiguous
+ * int[] instead of following a reference to every spot.
+ *
+ * Every parked spot knows its own position (see Spot.getPosition()), so that
+ * the position of a given spot is found in constant time, like the positions[]
+ * of the spots of the a2 lot.
+ */
+public class ParkedCars {
+
+	private static final int INITIAL_CAPACITY = 16;
+
+	/**
+	 * The (simulated) time at which each car parked
+	 */
+	private int[] timestamps;
+
+	/**
+	 * The time at which each car is due to leave, as scheduled by the
+	 * event-driven engine, or -1 if no departure has been drawn for it yet
+	 */
+	private int[] departures;
+
+	/**
+	 * The spot object of each car, for callers that ask for it
+	 */
+	private Spot[] spots;
+
+	/**
+	 * The decisions of the last departure sweep (see removeDepartures())
+	 */
+	private boolean[] leaves;
+
+	private int size;
+
+	public ParkedCars() {
+		timestamps = new int[INITIAL_CAPACITY];
+		departures = new int[INITIAL_CAPACITY];
+		spots = new Spot[INITIAL_CAPACITY];
+		leaves = new boolean[INITIAL_CAPACITY];
+		size = 0;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * Adds a car at position size()
+	 * 
+	 * @param spot      is the spot of the car
+	 * @param timestamp is the (simulated) time at which the car parked
+	 */
+	public void add(Spot spot, int timestamp) {
+
+		if (spot == null)
+			throw new NullPointerException("Spot object cannot be null");
+
+		if (size == spots.length) {
+			int capacity = 2 * spots.length;
+
+			int[] largerTimestamps = new int[capacity];
+			System.arraycopy(timestamps, 0, largerTimestamps, 0, size);
+			timestamps = largerTimestamps;
+
+			int[] largerDepartures = new int[capacity];
+			System.arraycopy(departures, 0, largerDepartures, 0, size);
+			departures = largerDepartures;
+
+			Spot[] largerSpots = new Spot[capacity];
+			System.arraycopy(spots, 0, largerSpots, 0, size);
+			spots = largerSpots;
+
+			leaves = new boolean[capacity];
+		}
+
+		timestamps[size] = timestamp;
+		departures[size] = -1;
+		spots[size] = spot;
+		spot.setPosition(size);
+		size++;
+	}
+
+	/**
+	 * Removes the car at a given position; the last car takes that position
+	 * 
+	 * @param k is the position of the car
+	 * @return the spot of the removed car
+	 */
+	public Spot remove(int k) {
+		checkPosition(k);
+
+		Spot removed = spots[k];
+		size--;
+
+		timestamps[k] = timestamps[size];
+		departures[k] = departures[size];
+		spots[k] = spots[size];
+		spots[k].setPosition(k);
+		spots[size] = null;
+
+		removed.setPosition(-1);
+		return removed;
+	}
+
+	/**
+	 * Removes the cars that a departure sweep decides to let go. The timestamp of
+	 * each removed spot is set to the time of departure.
+	 * 
+	 * @param sweep    decides which cars leave
+	 * @param clock    is the current (simulated) time
+	 * @param random   is the source of randomness of the sweep
+	 * @param departed receives the spots of the cars that leave
+	 */
+	public void removeDepartures(DepartureSweep sweep, int clock, RandomSource random, Queue<Spot> departed) {
+		sweep.markDepartures(timestamps, size, clock, random, leaves);
+
+		// from the last position down, so that the car that remove() moves into a
+		// freed position has already been dealt with
+		for (int k = size - 1; k >= 0; k--) {
+			if (leaves[k]) {
+				Spot spot = remove(k);
+				spot.setTimestamp(clock);
+				departed.enqueue(spot);
+			}
+		}
+	}
+
+	/**
+	 * @param spot is a spot
+	 * @return the position of the car parked in the given spot (the very same
+	 *         object), or -1 if it is not parked here; takes constant time
+	 */
+	public int indexOf(Spot spot) {
+		int k = spot.getPosition();
+
+		if (k >= 0 && k < size && spots[k] == spot)
+			return k;
+
+		return -1;
+	}
+
+	public int getTimestamp(int k) {
+		checkPosition(k);
+		return timestamps[k];
+	}
+
+	/**
+	 * @param k is the position of the car
+	 * @return the time at which the car is due to leave, or -1 if none has been
+	 *         set since it parked
+	 */
+	public int getDeparture(int k) {
+		checkPosition(k);
+		return departures[k];
+	}
+
+	/**
+	 * @param k    is the position of the car
+	 * @param time is the time at which the car is due to leave, or -1 for none
+	 */
+	public void setDeparture(int k, int time) {
+		checkPosition(k);
+		departures[k] = time;
+	}
+
+	public Spot getSpot(int k) {
+		checkPosition(k);
+		return spots[k];
+	}
+
+	public void clear() {
+		for (int k = 0; k < size; k++) {
+			spots[k].setPosition(-1);
+			spots[k] = null;
+		}
+
+		size = 0;
+	}
+
+	private void checkPosition(int k) {
+		if (k < 0 || k >= size)
+			throw new IndexOutOfBoundsException(Integer.toString(k));
+	}
+
+	public String toString() {
+		StringBuffer res = new StringBuffer();
+		res.append("[");
+		for (int k = 0; k < size; k++) {
+			if (k > 0)
+				res.append(" ");
+			res.append(spots[k]);
+		}
+		res.append("]");
+		return res.toString();
+	}
+}
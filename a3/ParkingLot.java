@@ -1,3 +1,6 @@
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
 /**
  * @author Mehrdad Sabetzadeh, University of Ottawa
  */
@@ -8,9 +11,12 @@ public class ParkingLot {
 	// ParkingLot. Defining new instance variables can take you away from this
 	// implementation goal and thus result in the loss of marks.
 	/**
-	 * List for storing occupancy information in the lot
+	 * Occupancy information for the lot, kept as parallel arrays so that
+	 * departure sweeps (see getTimestampAt()) scan contiguous memory. Parking,
+	 * indexed access and removals take constant time; removals move the last
+	 * spot into the freed position.
 	 */
-	private List<Spot> occupancy;
+	private ParkedCars occupancy;
 
 	/**
 	 * The maximum number of cars that the lot can accommodate
@@ -28,7 +34,7 @@ public class ParkingLot {
 			throw new IllegalArgumentException("Capacity must be positive!");
 
 		this.capacity = capacity;
-		this.occupancy = new SinglyLinkedList<Spot>();
+		this.occupancy = new ParkedCars();
 	}
 
 	/**
@@ -47,13 +53,36 @@ public class ParkingLot {
 
 		if (occupancy.size() < capacity) {
 			Spot spot = new Spot(c, timestamp);
-			occupancy.add(spot); // review implementation of this method
+			occupancy.add(spot, timestamp); // review implementation of this method
 		}
 
 	}
 
 	/**
-	 * Removes the car (spot) parked at list index i in the parking lot
+	 * Parks a given spot, i.e., a car together with the spot object that records
+	 * its parking time, so that callers that recycle spots do not allocate one
+	 * per car.
+	 * 
+	 * @param spot      is the spot to be parked; its timestamp is overwritten
+	 * @param timestamp is the (simulated) time when the car gets parked in the lot
+	 */
+	public void park(Spot spot, int timestamp) {
+
+		if (spot == null)
+			throw new NullPointerException("Spot object cannot be null");
+
+		if (timestamp < 0)
+			throw new IllegalArgumentException("Timestamp must be non-negative.");
+
+		if (occupancy.size() < capacity) {
+			spot.setTimestamp(timestamp);
+			occupancy.add(spot, timestamp);
+		}
+	}
+
+	/**
+	 * Removes the car (spot) parked at list index i in the parking lot. The last
+	 * spot of the list takes index i.
 	 * 
 	 * @param i is the index of the car to be removed
 	 * @return the car (spot) that has been removed
@@ -63,9 +92,26 @@ public class ParkingLot {
 		if (i < 0 || i >= occupancy.size())
 			throw new IndexOutOfBoundsException("Index out of bound or greater than the size of the occupancy.");
 
-		Spot tmp = occupancy.get(i);
-		occupancy.remove(i);
-		return tmp;
+		return occupancy.remove(i);
+	}
+
+	/**
+	 * Removes a given car (spot) from the parking lot, in constant time
+	 *
+	 * @param spot is the spot to be removed
+	 * @return true if the spot was in the lot and has been removed, false otherwise
+	 */
+	public boolean remove(Spot spot) {
+
+		if (spot == null)
+			throw new NullPointerException("Spot object cannot be null.");
+
+		int k = occupancy.indexOf(spot);
+		if (k < 0)
+			return false;
+
+		occupancy.remove(k);
+		return true;
 	}
 
 	public boolean attemptParking(Car c, int timestamp) {
@@ -84,6 +130,71 @@ public class ParkingLot {
 
 	}
 
+	/**
+	 * Same as attemptParking(Car, int), but parks the given spot object itself
+	 * 
+	 * @param spot      is the spot to be parked
+	 * @param timestamp is the (simulated) time when the car gets parked in the lot
+	 * @return true if the car has been parked, false if the lot is full
+	 */
+	public boolean attemptParking(Spot spot, int timestamp) {
+		if (spot == null)
+			throw new NullPointerException("Spot object cannot be null.");
+
+		if (timestamp < 0)
+			throw new IllegalArgumentException("Timestamp must be non-negative.");
+
+		if (occupancy.size() < capacity) {
+			park(spot, timestamp);
+			return true;
+		} else
+			return false;
+	}
+
+	/**
+	 * Removes all the cars from the lot, so that the lot can be reused for another
+	 * simulation run without allocating a new one
+	 */
+	public void reset() {
+		occupancy.clear();
+	}
+
+	/**
+	 * Returns a cursor over the spots in the lot. Calling remove() on the cursor
+	 * removes the spot just returned in constant time, and every spot that is not
+	 * removed is visited exactly once, so the whole lot can be swept in one linear
+	 * pass.
+	 * 
+	 * @return a cursor over the spots in the lot
+	 */
+	public Iterator<Spot> sweep() {
+		return new Iterator<Spot>() {
+			private int next = 0;
+			private boolean canRemove = false;
+
+			public boolean hasNext() {
+				return next < occupancy.size();
+			}
+
+			public Spot next() {
+				if (next >= occupancy.size())
+					throw new NoSuchElementException();
+
+				canRemove = true;
+				return occupancy.getSpot(next++);
+			}
+
+			public void remove() {
+				if (!canRemove)
+					throw new IllegalStateException("next() has not been called");
+
+				// the last spot moves into the current position; visit it next
+				occupancy.remove(--next);
+				canRemove = false;
+			}
+		};
+	}
+
 	/**
 	 * @return the capacity of the parking lot
 	 */
@@ -91,6 +202,22 @@ public class ParkingLot {
 		return capacity;
 	}
 
+	/**
+	 * Changes the capacity of an empty lot
+	 * 
+	 * @param capacity is the new (maximum) capacity of the lot
+	 */
+	public void setCapacity(int capacity) {
+
+		if (capacity < 0)
+			throw new IllegalArgumentException("Capacity must be positive!");
+
+		if (!occupancy.isEmpty())
+			throw new IllegalStateException("Capacity can only change when the lot is empty.");
+
+		this.capacity = capacity;
+	}
+
 	/**
 	 * Returns the spot instance at a given position (i, j)
 	 * 
@@ -102,7 +229,62 @@ public class ParkingLot {
 		if (i < 0 || i >= occupancy.size())
 			throw new IndexOutOfBoundsException("Index " + i + "is out of bound for the occupancy list");
 
-		return occupancy.get(i);
+		return occupancy.getSpot(i);
+	}
+
+	/**
+	 * Returns the time at which the car at list index i parked. Unlike
+	 * getSpotAt(i).getTimestamp(), this does not touch the spot object, so that
+	 * a sweep over all the cars reads the parking times one after the other.
+	 * 
+	 * @param i is the index of the car
+	 * @return the (simulated) time at which the car parked
+	 */
+	public int getTimestampAt(int i) {
+		if (i < 0 || i >= occupancy.size())
+			throw new IndexOutOfBoundsException("Index " + i + "is out of bound for the occupancy list");
+
+		return occupancy.getTimestamp(i);
+	}
+
+	/**
+	 * Returns the time at which the car at list index i is due to leave, so that
+	 * a departure drawn by one call of the event-driven engine is kept by the
+	 * next one
+	 * 
+	 * @param i is the index of the car
+	 * @return the (simulated) time at which the car leaves, or -1 if none has
+	 *         been set since it parked
+	 */
+	public int getDepartureAt(int i) {
+		if (i < 0 || i >= occupancy.size())
+			throw new IndexOutOfBoundsException("Index " + i + "is out of bound for the occupancy list");
+
+		return occupancy.getDeparture(i);
+	}
+
+	/**
+	 * @param i    is the index of the car
+	 * @param time is the (simulated) time at which the car leaves, or -1 for none
+	 */
+	public void setDepartureAt(int i, int time) {
+		if (i < 0 || i >= occupancy.size())
+			throw new IndexOutOfBoundsException("Index " + i + "is out of bound for the occupancy list");
+
+		occupancy.setDeparture(i, time);
+	}
+
+	/**
+	 * Removes, in one pass, the cars that a departure sweep decides to let go, and
+	 * sets the timestamp of their spots to the current time
+	 * 
+	 * @param sweep    decides which cars leave
+	 * @param clock    is the current (simulated) time
+	 * @param random   is the source of randomness of the sweep
+	 * @param departed receives the spots of the cars that leave
+	 */
+	public void removeDepartures(DepartureSweep sweep, int clock, RandomSource random, Queue<Spot> departed) {
+		occupancy.removeDepartures(sweep, clock, random, departed);
 	}
 
 	/**
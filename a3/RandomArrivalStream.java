@@ -0,0 +1,35 @@
+/**
+ * An arrival stream whose arrivals, plates and stays are drawn as they are
+ * asked for, exactly as the event-driven engine of Simulator draws them when
+ * it is not given a stream
+ */
+public class RandomArrivalStream implements ArrivalStream {
+
+	private ArrivalProfile arrivalProfile;
+	private RandomSource random;
+
+	/**
+	 * @param arrivalProfile gives the hourly arrival rate over the day
+	 * @param random         is the source of randomness
+	 */
+	public RandomArrivalStream(ArrivalProfile arrivalProfile, RandomSource random) {
+
+		if (arrivalProfile == null || random == null)
+			throw new NullPointerException("Arrival profile and random source cannot be null");
+
+		this.arrivalProfile = arrivalProfile;
+		this.random = random;
+	}
+
+	public int nextArrival(int time, int limit) {
+		return arrivalProfile.nextArrival(random, time, limit);
+	}
+
+	public int nextPlateCode() {
+		return RandomGenerator.generateRandomPlateCode(random, Simulator.PLATE_NUM_LENGTH);
+	}
+
+	public int nextStay() {
+		return Simulator.drawStay(random);
+	}
+}
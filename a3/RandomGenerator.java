@@ -1,11 +1,11 @@
 import java.util.Random;
 
 /**
- * @author Mehrdad Sabetzadeh, University of Ottawa
- * 
- *         The implementation of this class is complete. You do *not* need to
- *         change this class in this assignment.
+ * Random events, stay durations and cars for the simulation, and the packing of
+ * plate numbers into plate codes. Every method that draws random numbers can
+ * draw either from a shared source or from a given RandomSource.
  * 
+ * @author Mehrdad Sabetzadeh, University of Ottawa
  */
 
 public class RandomGenerator {
@@ -17,10 +17,39 @@ public class RandomGenerator {
 			'P', 'Q', 'R', 'S', 'T', 'U', 'V', 'W', 'X', 'Y', 'Z', '0', '1', '2', '3', '4', '5', '6', '7', '8', '9' };
 
 	/**
-	 * Instance of Random class; all random quantities in this assignment will be
-	 * generated through this single instance of Random
+	 * Longest plate number that fits in a plate code
+	 */
+	public static final int MAX_PLATE_CODE_LENGTH = 5;
+
+	/**
+	 * Source shared by the methods that are not given a source explicitly. It is
+	 * backed by an instance of Random, so that it can be used from any thread;
+	 * simulations get their own, faster RandomSource instead.
+	 */
+	private static RandomSource rand = new JdkRandomSource(new Random());
+
+	/**
+	 * Fixed-point scale of event thresholds: the threshold of a probability p is
+	 * p * 2^32, so that a threshold can be compared with a uniformly distributed
+	 * unsigned 32-bit random number
 	 */
-	private static Random rand = new Random();
+	public static final long THRESHOLD_SCALE = 1L << 32;
+
+	/**
+	 * Converts a probability into a threshold for eventOccurred(long), so that a
+	 * probability that is used over and over can be converted once.
+	 * 
+	 * @param probability is the probability of the event of interest occurring
+	 *                    within a SINGLE simulated time unit
+	 * @return the threshold corresponding to the probability; probabilities that
+	 *         eventOccurred(Rational) never accepts map to 0
+	 */
+	public static long threshold(Rational probability) {
+		if (probability.numerator() <= 0 || probability.denominator() < probability.numerator())
+			return 0;
+
+		return ((long) probability.numerator() << 32) / probability.denominator();
+	}
 
 	/**
 	 * @param probability is the probability of the event of interest occurring
@@ -35,11 +64,26 @@ public class RandomGenerator {
 	 *         unit, false otherwise
 	 */
 	public static boolean eventOccurred(Rational probability) {
+		return eventOccurred(rand, probability);
+	}
+
+	/**
+	 * Same as eventOccurred(Rational), but draws from a given source rather than
+	 * from the shared one. Simulations that run concurrently, or that have to be
+	 * reproducible, each use their own (seeded) source.
+	 * 
+	 * @param random      is the source of randomness
+	 * @param probability is the probability of the event of interest occurring
+	 *                    within a SINGLE simulated time unit
+	 * @return true if the event of interest occurred within the current single time
+	 *         unit, false otherwise
+	 */
+	public static boolean eventOccurred(RandomSource random, Rational probability) {
 		if (probability.numerator() <= 0 || probability.denominator() < probability.numerator()) {
 			return false;
 		}
 
-		int number = rand.nextInt(probability.denominator());
+		int number = random.nextInt(probability.denominator());
 
 		if (number < probability.numerator())
 			return true;
@@ -48,18 +92,246 @@ public class RandomGenerator {
 
 	}
 
+	/**
+	 * Same as eventOccurred(Rational), but takes a precomputed threshold and
+	 * allocates nothing. The event occurs with probability threshold / 2^32.
+	 * 
+	 * @param threshold is the event threshold (see threshold(Rational))
+	 * @return true if the event of interest occurred within the current single time
+	 *         unit, false otherwise
+	 */
+	public static boolean eventOccurred(long threshold) {
+		return eventOccurred(rand, threshold);
+	}
+
+	/**
+	 * @param random    is the source of randomness
+	 * @param threshold is the event threshold (see threshold(Rational))
+	 * @return true if the event of interest occurred within the current single time
+	 *         unit, false otherwise
+	 */
+	public static boolean eventOccurred(RandomSource random, long threshold) {
+		return (random.nextInt() & 0xFFFFFFFFL) < threshold;
+	}
+
+	/**
+	 * Draws, in one go, the outcome of repeatedly calling eventOccurred() once per
+	 * time unit.
+	 *
+	 * @param probability is the probability of the event of interest occurring
+	 *                    within a SINGLE simulated time unit
+	 * @return the number of time units up to and including the next occurrence of
+	 *         the event (a geometrically distributed value >= 1), or
+	 *         Integer.MAX_VALUE if the event can never occur
+	 */
+	public static int timeUntilEvent(Rational probability) {
+		return timeUntilEvent(rand, probability);
+	}
+
+	/**
+	 * @param random      is the source of randomness
+	 * @param probability is the probability of the event of interest occurring
+	 *                    within a SINGLE simulated time unit
+	 * @return see timeUntilEvent(Rational)
+	 */
+	public static int timeUntilEvent(RandomSource random, Rational probability) {
+		if (probability.numerator() <= 0 || probability.denominator() < probability.numerator())
+			return Integer.MAX_VALUE;
+
+		if (probability.numerator() == probability.denominator())
+			return 1;
+
+		double u = 1.0d - random.nextDouble(); // in (0, 1]
+		double time = Math.ceil(Math.log(u) / Math.log1p(-probability.toDouble()));
+
+		if (time >= Integer.MAX_VALUE)
+			return Integer.MAX_VALUE;
+
+		return Math.max(1, (int) time);
+	}
+
+	/**
+	 * @param cdf is a cumulative distribution over 0..cdf.length - 1, i.e., a
+	 *            non-decreasing array whose last entry is 1
+	 * @return a value drawn from the distribution
+	 */
+	public static int sample(double[] cdf) {
+		return sample(rand, cdf);
+	}
+
+	/**
+	 * @param random is the source of randomness
+	 * @param cdf    is a cumulative distribution over 0..cdf.length - 1
+	 * @return a value drawn from the distribution
+	 */
+	public static int sample(RandomSource random, double[] cdf) {
+		double u = random.nextDouble();
+
+		// smallest index whose cumulative probability exceeds u
+		int low = 0;
+		int high = cdf.length - 1;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (cdf[mid] > u)
+				high = mid;
+			else
+				low = mid + 1;
+		}
+
+		return low;
+	}
+
+	/**
+	 * Same as sample(RandomSource, double[]), but draws a value conditionally on
+	 * it being at least a given one, i.e., from the part of the distribution
+	 * that has not been ruled out yet
+	 *
+	 * @param random is the source of randomness
+	 * @param cdf    is a cumulative distribution over 0..cdf.length - 1
+	 * @param least  is the smallest value that may be drawn, between 0 and
+	 *               cdf.length - 1
+	 * @return a value drawn from the distribution, given that it is at least
+	 *         least
+	 */
+	public static int sample(RandomSource random, double[] cdf, int least) {
+		if (least < 0 || least >= cdf.length)
+			throw new IllegalArgumentException("Least value must be between 0 and " + (cdf.length - 1));
+
+		double ruledOut = least == 0 ? 0.0d : cdf[least - 1];
+		double u = ruledOut + (1.0d - ruledOut) * random.nextDouble();
+
+		int low = least;
+		int high = cdf.length - 1;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (cdf[mid] > u)
+				high = mid;
+			else
+				low = mid + 1;
+		}
+
+		return low;
+	}
+
+	/**
+	 * @param distribution is the distribution to draw from
+	 * @return a value drawn from the distribution
+	 */
+	public static int sample(TriangularDistribution distribution) {
+		return sample(rand, distribution);
+	}
+
+	/**
+	 * @param random       is the source of randomness
+	 * @param distribution is the distribution to draw from
+	 * @return a value drawn from the distribution
+	 */
+	public static int sample(RandomSource random, TriangularDistribution distribution) {
+		return distribution.sample(random.nextDouble());
+	}
+
 	/**
 	 * @param length is the length of the random string to generate
 	 * @return a random string with the specified length
 	 */
 	public static String generateRandomString(int length) {
+		return generateRandomString(rand, length);
+	}
+
+	/**
+	 * @param random is the source of randomness
+	 * @param length is the length of the random string to generate
+	 * @return a random string with the specified length
+	 */
+	public static String generateRandomString(RandomSource random, int length) {
 
 		StringBuffer buffer = new StringBuffer();
 
 		for (int i = 0; i < length; i++) {
-			buffer.append(ALPHANUM[rand.nextInt(ALPHANUM.length)]);
+			buffer.append(ALPHANUM[random.nextInt(ALPHANUM.length)]);
 		}
 
 		return buffer.toString();
 	}
+
+	/**
+	 * Same as generateRandomString(Random, int), but returns the string packed
+	 * into an int (see encodePlate()) and allocates nothing. Every string of the
+	 * given length is equally likely.
+	 * 
+	 * @param random is the source of randomness
+	 * @param length is the length of the random string, at most
+	 *               MAX_PLATE_CODE_LENGTH
+	 * @return the packed form of a random string with the specified length
+	 */
+	public static int generateRandomPlateCode(RandomSource random, int length) {
+
+		if (length < 0 || length > MAX_PLATE_CODE_LENGTH)
+			throw new IllegalArgumentException("Length must be between 0 and " + MAX_PLATE_CODE_LENGTH);
+
+		// the codes of the strings of a given length are consecutive, starting at
+		// the code of "AA...A", which is 1 + 36 + ... + 36^(length-1)
+		int first = 0;
+		int count = 1;
+		for (int i = 0; i < length; i++) {
+			first += count;
+			count *= ALPHANUM.length;
+		}
+
+		return first + random.nextInt(count);
+	}
+
+	/**
+	 * Packs a string of admissible characters into an int. The string is read as a
+	 * number in bijective base 36 (digits 1..36 standing for the admissible
+	 * characters), so that strings of different lengths get different codes.
+	 * 
+	 * @param plate is the string to pack
+	 * @return the packed string, or -1 if the string is longer than
+	 *         MAX_PLATE_CODE_LENGTH or has characters that are not admissible
+	 */
+	public static int encodePlate(String plate) {
+
+		if (plate.length() > MAX_PLATE_CODE_LENGTH)
+			return -1;
+
+		int code = 0;
+
+		for (int i = 0; i < plate.length(); i++) {
+			char ch = plate.charAt(i);
+			int digit;
+
+			if (ch >= 'A' && ch <= 'Z')
+				digit = ch - 'A';
+			else if (ch >= '0' && ch <= '9')
+				digit = 26 + ch - '0';
+			else
+				return -1;
+
+			code = code * ALPHANUM.length + digit + 1;
+		}
+
+		return code;
+	}
+
+	/**
+	 * @param code is a string packed by encodePlate() or generateRandomPlateCode()
+	 * @return the unpacked string
+	 */
+	public static String decodePlate(int code) {
+
+		if (code < 0)
+			throw new IllegalArgumentException("Plate code must be non-negative.");
+
+		char[] chars = new char[MAX_PLATE_CODE_LENGTH];
+		int start = chars.length;
+
+		while (code > 0) {
+			code--;
+			chars[--start] = ALPHANUM[code % ALPHANUM.length];
+			code /= ALPHANUM.length;
+		}
+
+		return new String(chars, start, chars.length - start);
+	}
 }
@@ -0,0 +1,40 @@
+/**
+ * A source of random numbers for one simulation. Unlike java.util.Random,
+ * implementations are not meant to be shared between threads, so they do not
+ * pay for synchronization: every simulator that runs concurrently owns its own
+ * source, typically obtained by splitting a seeded parent source.
+ */
+public interface RandomSource {
+
+	/**
+	 * @return a uniformly distributed int (all 2^32 values are equally likely)
+	 */
+	int nextInt();
+
+	/**
+	 * @param bound is the (exclusive) upper bound, which must be positive
+	 * @return a uniformly distributed int between 0 (inclusive) and bound
+	 *         (exclusive)
+	 */
+	int nextInt(int bound);
+
+	/**
+	 * @return a uniformly distributed long
+	 */
+	long nextLong();
+
+	/**
+	 * @return a uniformly distributed double between 0 (inclusive) and 1
+	 *         (exclusive)
+	 */
+	double nextDouble();
+
+	/**
+	 * Returns a new source whose stream is statistically independent of this one.
+	 * The child depends only on the state of this source, so that splitting a
+	 * source with a given seed always yields the same children in the same order.
+	 * 
+	 * @return the new source
+	 */
+	RandomSource split();
+}
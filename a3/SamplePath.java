@@ -0,0 +1,130 @@
+/**
+ * The arrivals of a simulated day and the stays of the arriving cars, drawn
+ * once and stored in arrays, so that the same day can be replayed any number
+ * of times, e.g., with lots of different sizes. Comparing lot sizes on the
+ * same sample paths (common random numbers) removes the part of the
+ * difference between their queues that is due to drawing different days.
+ */
+public class SamplePath implements ArrivalStream {
+
+	private int[] arrivalTimes;
+	private int[] plateCodes;
+
+	/**
+	 * Stays of the cars in order of arrival, as chars: stays are at most
+	 * MAX_PARKING_DURATION + 1 seconds
+	 */
+	private char[] stays;
+
+	private int size;
+
+	/**
+	 * Next arrival, plate and stay to replay
+	 */
+	private int nextArrival;
+	private int nextPlate;
+	private int nextStay;
+
+	/**
+	 * Draws a day of arrivals and stays
+	 * 
+	 * @param arrivalProfile gives the hourly arrival rate over the day
+	 * @param steps          is the length of the day in (simulated) seconds
+	 * @param random         is the source of randomness
+	 */
+	public SamplePath(ArrivalProfile arrivalProfile, int steps, RandomSource random) {
+		this(new RandomArrivalStream(arrivalProfile, random), steps,
+				16 + (int) Math.min(1 << 28, 1.1d * arrivalProfile.expectedArrivals(steps)));
+	}
+
+	/**
+	 * Copies the arrivals of a stream, with the plates and stays of the arriving
+	 * cars, e.g., to replay a MappedTrace from memory
+	 * 
+	 * @param source is the stream to copy
+	 * @param steps  is the length of the day in (simulated) seconds
+	 */
+	public SamplePath(ArrivalStream source, int steps) {
+		this(source, steps, 16);
+	}
+
+	private SamplePath(ArrivalStream source, int steps, int capacity) {
+
+		if (source == null)
+			throw new NullPointerException("Arrival stream cannot be null");
+
+		if (steps < 0)
+			throw new IllegalArgumentException("Steps should be a non negative integer");
+
+		arrivalTimes = new int[capacity];
+		plateCodes = new int[capacity];
+		stays = new char[capacity];
+
+		for (int time = source.nextArrival(-1, steps); time < steps; time = source.nextArrival(time, steps)) {
+
+			if (size == arrivalTimes.length)
+				grow();
+
+			arrivalTimes[size] = time;
+			plateCodes[size] = source.nextPlateCode();
+
+			int stay = source.nextStay();
+			if (stay < 0 || stay > Character.MAX_VALUE)
+				throw new IllegalArgumentException("Stay out of range: " + stay);
+
+			stays[size] = (char) stay;
+			size++;
+		}
+	}
+
+	/**
+	 * @return the number of arrivals of the day
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Starts the replay over from the first arrival
+	 */
+	public void rewind() {
+		nextArrival = 0;
+		nextPlate = 0;
+		nextStay = 0;
+	}
+
+	public int nextArrival(int time, int limit) {
+		if (nextArrival == size || arrivalTimes[nextArrival] >= limit)
+			return limit;
+
+		return arrivalTimes[nextArrival++];
+	}
+
+	public int nextPlateCode() {
+		if (nextPlate == size)
+			throw new IllegalStateException("No more cars on this sample path");
+
+		return plateCodes[nextPlate++];
+	}
+
+	public int nextStay() {
+		if (nextStay == size)
+			throw new IllegalStateException("No more cars on this sample path");
+
+		return stays[nextStay++];
+	}
+
+	private void grow() {
+		int[] largerTimes = new int[2 * size];
+		int[] largerPlates = new int[2 * size];
+		char[] largerStays = new char[2 * size];
+
+		System.arraycopy(arrivalTimes, 0, largerTimes, 0, size);
+		System.arraycopy(plateCodes, 0, largerPlates, 0, size);
+		System.arraycopy(stays, 0, largerStays, 0, size);
+
+		arrivalTimes = largerTimes;
+		plateCodes = largerPlates;
+		stays = largerStays;
+	}
+}
@@ -0,0 +1,61 @@
+/**
+ * A departure sweep that handles one car at a time. It is the fallback of
+ * VectorDepartureSweep and makes exactly the same decisions.
+ *
+ * Rather than drawing one number per car from the random source, which would
+ * serialize the sweep, a sweep draws a single key and derives the number of
+ * the car at position k by hashing k with the key (see draw()). Every car
+ * still gets a uniformly distributed number, and the numbers of one sweep are
+ * all different, but they can be computed in any order.
+ */
+public class ScalarDepartureSweep implements DepartureSweep {
+
+	private int[] thresholds;
+	private int maxDuration;
+
+	/**
+	 * @param thresholds holds, at index d, the departure threshold of a car that
+	 *                   has been parked for d seconds
+	 */
+	public ScalarDepartureSweep(int[] thresholds) {
+		if (thresholds == null || thresholds.length == 0)
+			throw new IllegalArgumentException("Thresholds cannot be empty");
+
+		this.thresholds = thresholds;
+		this.maxDuration = thresholds.length - 1;
+	}
+
+	public void markDepartures(int[] timestamps, int count, int clock, RandomSource random, boolean[] leaves) {
+		int key = random.nextInt();
+
+		for (int k = 0; k < count; k++) {
+			int duration = clock - timestamps[k];
+
+			leaves[k] = duration > maxDuration || Integer.compareUnsigned(draw(key, k), thresholds[duration]) < 0;
+		}
+	}
+
+	/**
+	 * @param key is the key of a sweep
+	 * @param k   is the position of a car
+	 * @return the random number of the car in the sweep: k scrambled by a Weyl
+	 *         step, xored with the key, and mixed with the lowbias32 hash of Chris
+	 *         Wellons. Each step is a bijection, so different positions get
+	 *         different numbers.
+	 */
+	public static int draw(int key, int k) {
+		int x = (k * 0x9E3779B9) ^ key;
+
+		x ^= x >>> 16;
+		x *= 0x7FEB352D;
+		x ^= x >>> 15;
+		x *= 0x846CA68B;
+		x ^= x >>> 16;
+
+		return x;
+	}
+
+	public String toString() {
+		return "scalar";
+	}
+}
@@ -0,0 +1,37 @@
+/**
+ * The strategies that CapacityOptimizer can use to find the smallest lot size
+ * whose average end-of-day queue is short enough.
+ */
+public enum SearchMode {
+	/**
+	 * Tries lot sizes 1, 2, 3, ... until one is large enough. This is the
+	 * reference strategy.
+	 */
+	LINEAR,
+
+	/**
+	 * Doubles the lot size until one is large enough, then bisects between the
+	 * last size that was too small and the first one that was large enough. This
+	 * relies on the queue length decreasing as the capacity of the lot grows.
+	 */
+	GALLOPING,
+
+	/**
+	 * Bisects between the bounds of a CapacityEstimate, so that only lot sizes
+	 * near the answer are simulated. A bound that turns out to be wrong is moved
+	 * out, doubling the distance to the estimate each time, so the result does
+	 * not depend on the bounds being right; like GALLOPING, this relies on the
+	 * queue length decreasing as the capacity of the lot grows.
+	 */
+	BOUNDED,
+
+	/**
+	 * Replays the days of common random numbers (or of the trace) once per
+	 * replication, computing the end-of-day queue for all lot sizes between the
+	 * bounds of a CapacityEstimate at once (see CapacityCurve), and takes the
+	 * smallest lot size whose average is short enough. The range is moved if the
+	 * answer is not in it. Gives the same answer as LINEAR with common random
+	 * numbers and the event-driven engine, whatever engine is set.
+	 */
+	CURVE;
+}
@@ -0,0 +1,25 @@
+/**
+ * The algorithms that a Simulator can use to advance simulated time.
+ */
+public enum SimulationEngine {
+	/**
+	 * Advances the clock one (simulated) second at a time and decides, for every
+	 * second, whether a car arrives and whether each parked car leaves
+	 */
+	TIME_STEPPED,
+
+	/**
+	 * Same model as TIME_STEPPED, but decides every second which parked cars
+	 * leave in one batch, in SIMD lanes when the Vector API is available (see
+	 * VectorDepartureSweep). The random numbers of the parked cars are derived
+	 * from one draw per second, so a given seed does not give the same run as
+	 * TIME_STEPPED.
+	 */
+	VECTORIZED,
+
+	/**
+	 * Draws the time of the next arrival and the whole stay of each parked car up
+	 * front, and jumps from one scheduled event to the next
+	 */
+	EVENT_DRIVEN;
+}
@@ -0,0 +1,269 @@
+/**
+ * Records what happens during simulations, beyond the length of the queue at
+ * the end: how long each car waited in the incoming queue before entering the
+ * lot, the occupancy of the lot and the length of the queue weighted by the
+ * (simulated) time they held each value, and the numbers of arrivals, entries
+ * and departures in every hour. Waits, occupancies and queue lengths are kept
+ * in LogLinearHistograms, so a recorder takes the same memory however long it
+ * records, and recording allocates nothing.
+ *
+ * A Simulator feeds its recorder (see Simulator.setMetrics()) from its own
+ * thread, without locking. Recorders of several replications are added up
+ * with merge(), which is synchronized on the recorder merged into, so that
+ * threads can merge the snapshots of their replications into one total. A
+ * recorder must not be merged or copied while its simulator is running.
+ */
+public class SimulationMetrics {
+
+	private static final int NUM_SECONDS_IN_1H = Simulator.NUM_SECONDS_IN_1H;
+
+	private LogLinearHistogram queueWaits;
+	private LogLinearHistogram occupancy;
+	private LogLinearHistogram queueLength;
+
+	private long[] arrivals;
+	private long[] entries;
+	private long[] departures;
+
+	/**
+	 * Last observed state of the simulation, which holds from time on; time is
+	 * -1 before the first observation
+	 */
+	private int time;
+	private int lastOccupancy;
+	private int lastQueueLength;
+
+	/**
+	 * @param steps is the length of the simulations to record, in (simulated)
+	 *              seconds
+	 */
+	public SimulationMetrics(int steps) {
+		if (steps < 0)
+			throw new IllegalArgumentException("Steps should be a non negative integer");
+
+		int hours = (steps + NUM_SECONDS_IN_1H - 1) / NUM_SECONDS_IN_1H;
+
+		this.queueWaits = new LogLinearHistogram();
+		this.occupancy = new LogLinearHistogram();
+		this.queueLength = new LogLinearHistogram();
+		this.arrivals = new long[hours];
+		this.entries = new long[hours];
+		this.departures = new long[hours];
+		this.time = -1;
+	}
+
+	/**
+	 * Starts (or restarts, e.g., after the clock of the simulator was set back)
+	 * the time-weighted quantities from a given state, without counting the
+	 * time since the previous observation
+	 *
+	 * @param time        is the (simulated) time
+	 * @param occupancy   is the number of cars in the lot
+	 * @param queueLength is the number of cars in the incoming queue
+	 */
+	public void start(int time, int occupancy, int queueLength) {
+		this.time = time;
+		this.lastOccupancy = occupancy;
+		this.lastQueueLength = queueLength;
+	}
+
+	/**
+	 * Records the state of the simulation from a given time on; the previous
+	 * state held since the previous observation. Observing an unchanged state
+	 * only costs a comparison (the state is recorded when it changes, or at
+	 * finish()), so that a simulation can observe its state every second.
+	 *
+	 * @param time        is the (simulated) time, not earlier than that of the
+	 *                    previous observation
+	 * @param occupancy   is the number of cars in the lot
+	 * @param queueLength is the number of cars in the incoming queue
+	 */
+	public void observe(int time, int occupancy, int queueLength) {
+		if (this.time < 0)
+			throw new IllegalStateException("start() has not been called");
+
+		if (time < this.time)
+			throw new IllegalArgumentException("Observations must be made in order of time");
+
+		if (occupancy == lastOccupancy && queueLength == lastQueueLength)
+			return;
+
+		finish(time);
+
+		this.lastOccupancy = occupancy;
+		this.lastQueueLength = queueLength;
+	}
+
+	/**
+	 * Records the last observed state up to a given time, e.g., the end of a
+	 * simulation
+	 *
+	 * @param time is the (simulated) time, not earlier than that of the previous
+	 *             observation
+	 */
+	public void finish(int time) {
+		if (this.time < 0)
+			throw new IllegalStateException("start() has not been called");
+
+		if (time > this.time) {
+			this.occupancy.record(lastOccupancy, time - this.time);
+			this.queueLength.record(lastQueueLength, time - this.time);
+			this.time = time;
+		}
+	}
+
+	/**
+	 * @param time is the (simulated) time at which a car joined the incoming
+	 *             queue
+	 */
+	public void carArrived(int time) {
+		arrivals[hour(time)]++;
+	}
+
+	/**
+	 * @param time    is the (simulated) time at which a car entered the lot
+	 * @param arrival is the (simulated) time at which the car had joined the
+	 *                incoming queue
+	 */
+	public void carEntered(int time, int arrival) {
+		entries[hour(time)]++;
+		queueWaits.record(time - arrival);
+	}
+
+	/**
+	 * @param time is the (simulated) time at which a car left the lot
+	 */
+	public void carExited(int time) {
+		departures[hour(time)]++;
+	}
+
+	/**
+	 * Adds the metrics recorded by another recorder of simulations of the same
+	 * length to this one
+	 *
+	 * @param other is the other recorder
+	 */
+	public synchronized void merge(SimulationMetrics other) {
+		if (other == null)
+			throw new NullPointerException("Metrics cannot be null");
+
+		if (other.arrivals.length != arrivals.length)
+			throw new IllegalArgumentException("Metrics of " + other.arrivals.length + " hours cannot be merged into "
+					+ arrivals.length + " hours");
+
+		queueWaits.merge(other.queueWaits);
+		occupancy.merge(other.occupancy);
+		queueLength.merge(other.queueLength);
+
+		for (int h = 0; h < arrivals.length; h++) {
+			arrivals[h] += other.arrivals[h];
+			entries[h] += other.entries[h];
+			departures[h] += other.departures[h];
+		}
+	}
+
+	/**
+	 * @return a copy of the metrics recorded so far, that later recordings do not
+	 *         change
+	 */
+	public SimulationMetrics snapshot() {
+		var snapshot = new SimulationMetrics(arrivals.length * NUM_SECONDS_IN_1H);
+		snapshot.merge(this);
+		return snapshot;
+	}
+
+	/**
+	 * Forgets all the recorded metrics
+	 */
+	public void reset() {
+		queueWaits.reset();
+		occupancy.reset();
+		queueLength.reset();
+
+		for (int h = 0; h < arrivals.length; h++) {
+			arrivals[h] = 0;
+			entries[h] = 0;
+			departures[h] = 0;
+		}
+
+		time = -1;
+	}
+
+	/**
+	 * @return the number of (simulated) seconds that a car waited in the incoming
+	 *         queue, for every car that entered the lot
+	 */
+	public LogLinearHistogram getQueueWaits() {
+		return queueWaits;
+	}
+
+	/**
+	 * @return the number of cars in the lot, weighted by the (simulated) time it
+	 *         lasted
+	 */
+	public LogLinearHistogram getOccupancy() {
+		return occupancy;
+	}
+
+	/**
+	 * @return the number of cars in the incoming queue, weighted by the
+	 *         (simulated) time it lasted
+	 */
+	public LogLinearHistogram getQueueLength() {
+		return queueLength;
+	}
+
+	/**
+	 * @return the number of hours for which arrivals, entries and departures are
+	 *         counted
+	 */
+	public int getHours() {
+		return arrivals.length;
+	}
+
+	/**
+	 * @param hour is an hour of the simulation, from 0
+	 * @return the number of cars that joined the incoming queue during the hour
+	 */
+	public long getArrivals(int hour) {
+		return arrivals[hour];
+	}
+
+	/**
+	 * @param hour is an hour of the simulation, from 0
+	 * @return the number of cars that entered the lot during the hour
+	 */
+	public long getEntries(int hour) {
+		return entries[hour];
+	}
+
+	/**
+	 * @param hour is an hour of the simulation, from 0
+	 * @return the number of cars that left the lot during the hour
+	 */
+	public long getDepartures(int hour) {
+		return departures[hour];
+	}
+
+	public String toString() {
+		StringBuffer buffer = new StringBuffer();
+
+		buffer.append("Queue wait (s): " + queueWaits.getCount() + " cars, " + queueWaits + System.lineSeparator());
+		buffer.append("Occupancy: " + occupancy + System.lineSeparator());
+		buffer.append("Queue length: " + queueLength + System.lineSeparator());
+
+		buffer.append("Arrivals/entries/departures per hour:");
+		for (int h = 0; h < arrivals.length; h++)
+			buffer.append(" " + arrivals[h] + "/" + entries[h] + "/" + departures[h]);
+		buffer.append(System.lineSeparator());
+
+		return buffer.toString();
+	}
+
+	private int hour(int time) {
+		if (time < 0 || time >= arrivals.length * NUM_SECONDS_IN_1H)
+			throw new IllegalArgumentException("Time " + time + " is outside the recorded hours");
+
+		return time / NUM_SECONDS_IN_1H;
+	}
+}
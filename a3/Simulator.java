@@ -1,3 +1,6 @@
+import java.io.IOException;
+import java.nio.file.Path;
+
 /**
  * @author Mehrdad Sabetzadeh, University of Ottawa
  *
@@ -32,9 +35,38 @@ public class Simulator {
 			MAX_PARKING_DURATION);
 
 	/**
-	 * The probability that a car would arrive at any given (simulated) second
+	 * Cumulative distribution of the number of seconds a car stays in the lot, as
+	 * implied by checking departurePDF once per second (see simulate()); entry d
+	 * is the probability that a car has left within d seconds of parking. The
+	 * event-driven engine draws each car's stay from it when the car parks.
+	 */
+	private static final double[] STAY_CDF = computeStayCdf();
+
+	/**
+	 * Simulated time between two checks of simulateWarmup() for steady state
 	 */
-	private Rational probabilityOfArrivalPerSec;
+	private static final int WARMUP_CHECK_INTERVAL = NUM_SECONDS_IN_1H;
+
+	/**
+	 * Simulated time before the first check of simulateWarmup(). Every car
+	 * present at the start has left after MAX_PARKING_DURATION; until the
+	 * simulation has run for a few such periods, MSER cannot tell the slow
+	 * random drift of the occupancy from a trend, and tends to call the
+	 * warm-up over too early.
+	 */
+	private static final int MIN_WARMUP_HORIZON = 2 * MAX_PARKING_DURATION;
+
+	/**
+	 * Departure thresholds of departurePDF for durations 0 to MAX_PARKING_DURATION,
+	 * as unsigned 32-bit values, for the departure sweeps of the VECTORIZED engine
+	 */
+	private static final int[] DEPARTURE_THRESHOLDS = computeDepartureThresholds();
+
+	/**
+	 * The probability that a car would arrive at any given (simulated) second, as
+	 * a function of time
+	 */
+	private ArrivalProfile arrivalProfile;
 
 	/**
 	 * The simulation clock. Initially the clock should be set to zero; the clock
@@ -65,31 +97,395 @@ public class Simulator {
 	 */
 	private Queue<Spot> outgoingQueue;
 
+	/**
+	 * Recycles the spots (and cars) of departed cars for new arrivals
+	 */
+	private SpotPool spotPool;
+
+	/**
+	 * Pending events of the event-driven engine
+	 */
+	private EventQueue events;
+
+	/**
+	 * The algorithm used to advance the simulation
+	 */
+	private SimulationEngine engine;
+
+	/**
+	 * Departure sweep of the VECTORIZED engine; created when that engine is
+	 * selected
+	 */
+	private DepartureSweep departureSweep;
+
+	/**
+	 * Source of all random quantities in this simulation
+	 */
+	private RandomSource random;
+
+	/**
+	 * Arrivals and stays to replay instead of drawing them from random; null to
+	 * draw them
+	 */
+	private ArrivalStream arrivalStream;
+
+	/**
+	 * Receives the ENTERED and EXITED events of the simulation
+	 */
+	private EventSink eventSink;
+
+	/**
+	 * Watch the occupancy of the lot and the length of the incoming queue for
+	 * steady state; null when steady-state detection is off
+	 */
+	private SteadyStateDetector occupancyDetector;
+	private SteadyStateDetector queueDetector;
+
+	/**
+	 * Records waits, occupancy, queue lengths and hourly counts; null when no
+	 * metrics are recorded
+	 */
+	private SimulationMetrics metrics;
+
+	/**
+	 * Whether the state of the simulation is observed after every change, i.e.,
+	 * whether there are detectors or metrics
+	 */
+	private boolean observing;
+
 	/**
 	 * @param lot   is the parking lot to be simulated
 	 * @param steps is the total number of steps for simulation
 	 */
 	public Simulator(ParkingLot lot, int perHourArrivalRate, int steps) {
+		this(lot, perHourArrivalRate, steps, new SplittableRandomSource());
+	}
+
+	/**
+	 * @param lot    is the parking lot to be simulated
+	 * @param steps  is the total number of steps for simulation
+	 * @param random is the source of all random quantities in the simulation; a
+	 *               simulator seeded with a given value always produces the same
+	 *               run
+	 */
+	public Simulator(ParkingLot lot, int perHourArrivalRate, int steps, RandomSource random) {
+		this(lot, constantProfile(perHourArrivalRate), steps, random);
+	}
+
+	/**
+	 * @param lot            is the parking lot to be simulated
+	 * @param arrivalProfile gives the hourly arrival rate over the day
+	 * @param steps          is the total number of steps for simulation
+	 */
+	public Simulator(ParkingLot lot, ArrivalProfile arrivalProfile, int steps) {
+		this(lot, arrivalProfile, steps, new SplittableRandomSource());
+	}
+
+	/**
+	 * @param lot            is the parking lot to be simulated
+	 * @param arrivalProfile gives the hourly arrival rate over the day
+	 * @param steps          is the total number of steps for simulation
+	 * @param random         is the source of all random quantities in the
+	 *                       simulation
+	 */
+	public Simulator(ParkingLot lot, ArrivalProfile arrivalProfile, int steps, RandomSource random) {
 
 		if (lot == null)
 			throw new IllegalArgumentException("Parking lot should not be null!");
 
-		if (perHourArrivalRate < 0)
-			throw new IllegalArgumentException("PerHourArrivalRate should be a non zero integers");
+		if (arrivalProfile == null)
+			throw new IllegalArgumentException("Arrival profile should not be null!");
 
 		if (steps < 0)
 			throw new IllegalArgumentException("Steps should be a non zero integer");
 
+		if (random == null)
+			throw new IllegalArgumentException("Random source should not be null!");
+
 		this.lot = lot;
 
-		this.probabilityOfArrivalPerSec = new Rational(perHourArrivalRate, 3600);
+		this.arrivalProfile = arrivalProfile;
 
 		this.steps = steps;
 
 		this.clock = 0;
 
-		this.incomingQueue = new LinkedQueue<Spot>();
-		this.outgoingQueue = new LinkedQueue<Spot>();
+		this.incomingQueue = new ArrayQueue<Spot>();
+		this.outgoingQueue = new ArrayQueue<Spot>();
+
+		this.spotPool = new SpotPool();
+		this.events = new EventQueue();
+
+		this.engine = SimulationEngine.TIME_STEPPED;
+
+		this.random = random;
+
+		this.eventSink = new NullEventSink();
+	}
+
+	private static ArrivalProfile constantProfile(int perHourArrivalRate) {
+		if (perHourArrivalRate < 0)
+			throw new IllegalArgumentException("PerHourArrivalRate should be a non zero integers");
+
+		return ArrivalProfile.constant(perHourArrivalRate);
+	}
+
+	/**
+	 * @return the arrival profile of the simulation
+	 */
+	public ArrivalProfile getArrivalProfile() {
+		return arrivalProfile;
+	}
+
+	/**
+	 * @return the algorithm used to advance the simulation
+	 */
+	public SimulationEngine getEngine() {
+		return engine;
+	}
+
+	/**
+	 * Sets the algorithm used to advance the simulation. Both engines simulate the
+	 * same model; the event-driven one does work proportional to the number of
+	 * arrivals and departures rather than to the number of simulated seconds
+	 * times the occupancy of the lot.
+	 * 
+	 * @param engine is the simulation engine
+	 */
+	public void setEngine(SimulationEngine engine) {
+		if (engine == null)
+			throw new NullPointerException("Engine cannot be null");
+
+		this.engine = engine;
+
+		if (engine == SimulationEngine.VECTORIZED && departureSweep == null)
+			departureSweep = newDepartureSweep();
+	}
+
+	/**
+	 * @return the departure sweep used by the VECTORIZED engine: a
+	 *         VectorDepartureSweep if the Vector API is available, and a
+	 *         ScalarDepartureSweep otherwise
+	 */
+	static DepartureSweep newDepartureSweep() {
+		// VectorDepartureSweep is compiled separately (see a3/vector), and needs
+		// --add-modules jdk.incubator.vector at run time
+		String pkg = Simulator.class.getPackageName();
+		String name = (pkg.isEmpty() ? "" : pkg + ".") + "VectorDepartureSweep";
+
+		try {
+			return (DepartureSweep) Class.forName(name).getConstructor(int[].class)
+					.newInstance((Object) DEPARTURE_THRESHOLDS);
+		} catch (ReflectiveOperationException | LinkageError e) {
+			return new ScalarDepartureSweep(DEPARTURE_THRESHOLDS);
+		}
+	}
+
+	/**
+	 * Replaces the source of all random quantities in the simulation, e.g., with
+	 * a freshly seeded one before simulating another day after reset()
+	 * 
+	 * @param random is the random source
+	 */
+	public void setRandomSource(RandomSource random) {
+		if (random == null)
+			throw new NullPointerException("Random source cannot be null");
+
+		this.random = random;
+	}
+
+	/**
+	 * Makes the event-driven engine replay the arrivals, plates and stays of a
+	 * stream (e.g., a SamplePath) rather than draw them; the simulation then uses
+	 * no random numbers at all. The stream is consumed from where it stands.
+	 * 
+	 * @param arrivalStream is the stream to replay, or null to draw arrivals and
+	 *                      stays from the random source again
+	 */
+	public void setArrivalStream(ArrivalStream arrivalStream) {
+		this.arrivalStream = arrivalStream;
+	}
+
+	/**
+	 * Draws the day that this simulator would simulate next, from its arrival
+	 * profile and random source, and writes it to a trace file (one segment of
+	 * steps seconds). Replaying the trace, with setArrivalStream(new
+	 * MappedTrace(file, 0)), then simulates that same day with any lot or
+	 * engine settings, without drawing anything.
+	 * 
+	 * @param file is the trace file
+	 * @throws IOException if the file cannot be written
+	 */
+	public void recordTrace(Path file) throws IOException {
+		TraceWriter.write(file, steps, new RandomArrivalStream(arrivalProfile, random));
+	}
+
+	/**
+	 * Sets the sink that receives the ENTERED and EXITED events of the simulation.
+	 * By default, events are ignored.
+	 * 
+	 * @param eventSink is the event sink
+	 */
+	public void setEventSink(EventSink eventSink) {
+		if (eventSink == null)
+			throw new NullPointerException("Event sink cannot be null");
+
+		this.eventSink = eventSink;
+	}
+
+	/**
+	 * Empties the lot and both queues and sets the clock back to zero, so that
+	 * another day can be simulated with the same simulator (and lot). The random
+	 * stream carries on where it stopped; see setRandomSource() for a reproducible
+	 * run. The spots and cars of the previous day are kept for reuse.
+	 */
+	public void reset() {
+		for (var spots = lot.sweep(); spots.hasNext();)
+			spotPool.release(spots.next());
+
+		lot.reset();
+
+		while (!incomingQueue.isEmpty())
+			spotPool.release(incomingQueue.dequeue());
+
+		while (!outgoingQueue.isEmpty())
+			spotPool.release(outgoingQueue.dequeue());
+
+		while (!events.isEmpty())
+			events.recycle(events.dequeue());
+
+		clock = 0;
+
+		if (occupancyDetector != null)
+			startDetection();
+	}
+
+	/**
+	 * Captures the state of the simulation (the clock, the lot and both queues),
+	 * e.g., at the end of a warm-up period, so that it can be restored later,
+	 * into this simulator or into others. The simulation is left as it was.
+	 * 
+	 * @return the checkpoint
+	 */
+	public SimulatorCheckpoint checkpoint() {
+		return SimulatorCheckpoint.capture(clock, lot, incomingQueue, outgoingQueue);
+	}
+
+	/**
+	 * Replaces the state of the simulation with that of a checkpoint: the lot
+	 * takes the capacity and the cars of the checkpoint, the queues take its
+	 * waiting cars and the clock its time. simulate() then carries on from there
+	 * until steps, with the random source of this simulator; set a different
+	 * source (see setRandomSource()) in each simulator that restores the same
+	 * checkpoint to branch independent continuations from it.
+	 * 
+	 * The time-stepped engines need nothing more than this state. The
+	 * event-driven engine draws the remaining stay of every restored car from
+	 * STAY_CDF, given the time that the car has already been parked.
+	 * 
+	 * @param checkpoint is the checkpoint to restore
+	 */
+	public void restore(SimulatorCheckpoint checkpoint) {
+		if (checkpoint == null)
+			throw new NullPointerException("Checkpoint cannot be null");
+
+		reset();
+
+		try {
+			checkpoint.restore(lot, incomingQueue, outgoingQueue, spotPool);
+		} catch (RuntimeException e) {
+			reset();
+			throw e;
+		}
+
+		clock = checkpoint.getClock();
+
+		if (occupancyDetector != null)
+			startDetection();
+	}
+
+	/**
+	 * Turns steady-state detection on or off. While it is on, simulate() watches
+	 * the occupancy of the lot and the length of the incoming queue (see
+	 * SteadyStateDetector), from the current clock on, so that
+	 * getTruncationPoint() can tell when the simulation left its warm-up behind.
+	 * reset() and restore() start watching again.
+	 * 
+	 * @param detection is true to turn detection on
+	 */
+	public void setSteadyStateDetection(boolean detection) {
+		if (!detection) {
+			occupancyDetector = null;
+			queueDetector = null;
+		} else if (occupancyDetector == null)
+			startDetection();
+
+		observing = occupancyDetector != null || metrics != null;
+	}
+
+	public boolean getSteadyStateDetection() {
+		return occupancyDetector != null;
+	}
+
+	/**
+	 * @return the (simulated) time from which both the occupancy of the lot and
+	 *         the length of the incoming queue are in steady state, according to
+	 *         the MSER rule, or -1 if either is not (yet); always -1 when
+	 *         steady-state detection is off
+	 */
+	public int getTruncationPoint() {
+		if (occupancyDetector == null)
+			return -1;
+
+		int occupancy = occupancyDetector.getTruncationPoint();
+		int queue = queueDetector.getTruncationPoint();
+
+		return occupancy < 0 || queue < 0 ? -1 : Math.max(occupancy, queue);
+	}
+
+	/**
+	 * Makes simulate() record metrics (queue waits, time-weighted occupancy and
+	 * queue length, and arrivals, entries and departures per hour) into a
+	 * recorder. The recorder keeps adding up until it is reset; the simulator
+	 * never resets it.
+	 * 
+	 * @param metrics is the recorder, covering at least steps seconds, or null to
+	 *                stop recording
+	 */
+	public void setMetrics(SimulationMetrics metrics) {
+		if (metrics != null && (long) metrics.getHours() * NUM_SECONDS_IN_1H < steps)
+			throw new IllegalArgumentException("Metrics cover " + metrics.getHours() + " hours, fewer than the simulation");
+
+		this.metrics = metrics;
+		observing = occupancyDetector != null || metrics != null;
+	}
+
+	public SimulationMetrics getMetrics() {
+		return metrics;
+	}
+
+	/**
+	 * Simulates the warm-up: watches for steady state from the current clock on
+	 * and simulates, an hour at a time after the first MIN_WARMUP_HORIZON
+	 * seconds, until the occupancy of the lot and the length of the incoming
+	 * queue are both in steady state, or until steps. The state of the
+	 * simulation is then typical of the long run, e.g., for a checkpoint from
+	 * which replications branch. With the event-driven engine, the departures
+	 * of the parked cars carry over from one hour to the next, so that the
+	 * warm-up simulates the same day as one uninterrupted run.
+	 * 
+	 * @return the truncation point (see getTruncationPoint()), or -1 if the
+	 *         simulation did not reach steady state before steps
+	 */
+	public int simulateWarmup() {
+		startDetection();
+
+		simulate(Math.min(steps, clock + MIN_WARMUP_HORIZON));
+
+		while (clock < steps && getTruncationPoint() < 0)
+			simulate(Math.min(steps, clock + WARMUP_CHECK_INTERVAL));
+
+		return getTruncationPoint();
 	}
 
 	/**
@@ -99,50 +495,318 @@ public class Simulator {
 	 * interface.
 	 */
 	public void simulate() {
+		simulate(steps);
+	}
+
+	/**
+	 * @param end is the (simulated) time up to which to simulate, at most steps
+	 */
+	private void simulate(int end) {
+		if (arrivalStream != null && engine != SimulationEngine.EVENT_DRIVEN)
+			throw new IllegalStateException("Arrival streams can only be replayed by the event-driven engine");
+
+		if (metrics != null)
+			metrics.start(clock, lot.getOccupancy(), incomingQueue.size());
+
+		if (engine == SimulationEngine.EVENT_DRIVEN)
+			simulateEvents(end);
+		else
+			simulateSteps(end);
+
+		if (metrics != null)
+			metrics.finish(clock);
+	}
+
+	/**
+	 * Time-stepped engine: every (simulated) second, a car arrives with the
+	 * probability that arrivalProfile gives for that second, every parked car leaves with
+	 * probability departurePDF.pdf(duration), and the car at the front of the
+	 * incoming queue enters the lot if there is room. With the VECTORIZED engine,
+	 * the departures are decided by departureSweep for all parked cars at once.
+	 * 
+	 * @param end is the (simulated) time up to which to simulate
+	 */
+	private void simulateSteps(int end) {
 		// Local variables can be defined here.
 		// Note that for the specific purposes of A2, clock could have been
 		// defined as a local variable too.
 
-		while (clock < steps) {
+		// departures drawn by the event-driven engine do not bind this one
+		for (int i = 0; i < lot.getOccupancy(); i++)
+			lot.setDepartureAt(i, -1);
+
+		while (clock < end) {
 
-			if (RandomGenerator.eventOccurred(probabilityOfArrivalPerSec))
-				incomingQueue.enqueue(new Spot(new Car(RandomGenerator.generateRandomString(PLATE_NUM_LENGTH)), clock));
+			if (RandomGenerator.eventOccurred(random, arrivalProfile.getThresholdPerSec(clock))) {
+				incomingQueue.enqueue(spotPool.acquire(RandomGenerator.generateRandomPlateCode(random, PLATE_NUM_LENGTH), clock));
+				if (metrics != null)
+					metrics.carArrived(clock);
+			}
 
-			// for every spot at lot:
-			for (int i = 0; i < this.lot.getOccupancy(); i++) {
-				var spot = this.lot.getSpotAt(i);
+			if (engine == SimulationEngine.VECTORIZED)
+				this.lot.removeDepartures(departureSweep, clock, random, this.outgoingQueue);
 
-				if (spot != null) {
-					var duration = clock - spot.getTimestamp();
+			// for every spot at lot; remove(i) moves the last spot to index i, which
+			// is then checked next
+			else
+				for (int i = 0; i < this.lot.getOccupancy();) {
+					var duration = clock - this.lot.getTimestampAt(i);
 					if (duration > MAX_PARKING_DURATION
-							|| RandomGenerator.eventOccurred(this.departurePDF.pdf(duration))) {
-						var removedSpot = this.lot.remove(i);
-						removedSpot.setTimestamp(clock);
-						this.outgoingQueue.enqueue(removedSpot);
-					}
+							|| RandomGenerator.eventOccurred(random, departurePDF.pdfThreshold(duration))) {
+						var spot = this.lot.remove(i);
+						spot.setTimestamp(clock);
+						this.outgoingQueue.enqueue(spot);
+					} else
+						i++;
+				}
+
+			if (!incomingQueue.isEmpty()) {
+				// parking overwrites the time at which the car arrived
+				int arrival = incomingQueue.peek().getTimestamp();
+
+				if (this.lot.attemptParking(incomingQueue.peek(), clock)) {
+					eventSink.carEntered(incomingQueue.dequeue().getCar(), clock, lot.getOccupancy());
+					if (metrics != null)
+						metrics.carEntered(clock, arrival);
 				}
 			}
 
-			if (!incomingQueue.isEmpty() && this.lot.attemptParking(incomingQueue.peek().getCar(), clock)) {
+			if (!this.outgoingQueue.isEmpty()) {
+				var spot = this.outgoingQueue.dequeue();
+				eventSink.carExited(spot.getCar(), clock, lot.getOccupancy());
+				if (metrics != null)
+					metrics.carExited(clock);
+				spotPool.release(spot);
+			}
 
-				// System.out.println(
-				// incomingQueue.peek().getCar() + " ENTERED at timestep " + clock + ";
-				// occupancy is at "
-				// + lot.getOccupancy());
+			if (observing)
+				observeState();
+
+			clock++;
+		}
+
+		if (observing)
+			observeState();
+	}
 
-				incomingQueue.dequeue();
+	/**
+	 * Event-driven engine: simulates the same model as simulateSteps(), but draws
+	 * the gap until the next arrival and the whole stay of a car (from STAY_CDF)
+	 * in one go, and jumps from one event to the next. At most one car enters the
+	 * lot per second, as in the time-stepped engine.
+	 * 
+	 * @param end is the (simulated) time up to which to simulate; events from end
+	 *            on are dropped, except the departures of parked cars, which
+	 *            the lot keeps for the next call (see getDepartureAt()), so that
+	 *            a replayed arrival stream gives the same day whether it is
+	 *            simulated in one call or in several
+	 */
+	private void simulateEvents(int end) {
+		boolean entryScheduled = false;
+
+		// events left over from a previous call can no longer happen
+		while (!events.isEmpty())
+			events.recycle(events.dequeue());
+
+		if (clock >= end)
+			return;
+
+		// the arrival check of the time-stepped engine starts at the current second
+		scheduleArrival(clock - 1, end);
+
+		// cars parked by an earlier call keep the departure drawn then; cars
+		// restored or parked by the time-stepped engine have none, and leave after
+		// a stay drawn given the time they have been parked
+		for (int i = 0; i < lot.getOccupancy(); i++) {
+			int departure = lot.getDepartureAt(i);
+
+			if (departure < clock) {
+				int timestamp = lot.getTimestampAt(i);
+				departure = timestamp + drawRemainingStay(random, Math.max(1, clock - timestamp));
+				lot.setDepartureAt(i, departure);
 			}
 
-			if (!this.outgoingQueue.isEmpty()) {
-				this.outgoingQueue.dequeue();
+			if (departure < end)
+				events.enqueue(departure, Event.DEPARTURE, lot.getSpotAt(i));
+		}
+
+		// cars left in the outgoing queue by a time-stepped engine leave at once
+		while (!outgoingQueue.isEmpty()) {
+			var spot = outgoingQueue.dequeue();
+			eventSink.carExited(spot.getCar(), clock, lot.getOccupancy());
+			if (metrics != null)
+				metrics.carExited(clock);
+			spotPool.release(spot);
+		}
 
-				// System.out.println(
-				// dequedItem.getCar() + " EXITED at timestep " + clock + "; occupancy is at "
-				// + lot.getOccupancy());
+		if (!incomingQueue.isEmpty()) {
+			events.enqueue(clock, Event.ENTRY, null);
+			entryScheduled = true;
+		}
+
+		while (!events.isEmpty() && events.peek().getTime() < end) {
+			// the state after the events at clock lasts until the next one
+			if (observing)
+				observeState();
+
+			Event event = events.dequeue();
+			int type = event.getType();
+			var spot = event.getSpot();
+			clock = event.getTime();
+			events.recycle(event);
+
+			if (type == Event.ARRIVAL) {
+				int plateCode = arrivalStream != null ? arrivalStream.nextPlateCode()
+						: RandomGenerator.generateRandomPlateCode(random, PLATE_NUM_LENGTH);
+				incomingQueue.enqueue(spotPool.acquire(plateCode, clock));
+				if (metrics != null)
+					metrics.carArrived(clock);
+				scheduleArrival(clock, end);
+
+			} else if (type == Event.DEPARTURE) {
+				lot.remove(spot);
+				spot.setTimestamp(clock);
+				eventSink.carExited(spot.getCar(), clock, lot.getOccupancy());
+				if (metrics != null)
+					metrics.carExited(clock);
+				spotPool.release(spot);
+
+			} else {
+				entryScheduled = false;
+
+				int arrival = incomingQueue.isEmpty() ? clock : incomingQueue.peek().getTimestamp();
+
+				if (!incomingQueue.isEmpty() && lot.attemptParking(incomingQueue.peek(), clock)) {
+					spot = incomingQueue.dequeue();
+					eventSink.carEntered(spot.getCar(), clock, lot.getOccupancy());
+					if (metrics != null)
+						metrics.carEntered(clock, arrival);
+
+					// the car that just parked takes the last position of the lot
+					int stay = arrivalStream != null ? arrivalStream.nextStay() : drawStay(random);
+					lot.setDepartureAt(lot.getOccupancy() - 1, clock + stay);
+					if (stay < end - clock)
+						events.enqueue(clock + stay, Event.DEPARTURE, spot);
+
+					// the next car in line may enter one second later, if there is room
+					if (!incomingQueue.isEmpty() && lot.getOccupancy() < lot.getCapacity()) {
+						events.enqueue(clock + 1, Event.ENTRY, null);
+						entryScheduled = true;
+					}
+				}
+				continue;
 			}
 
-			clock++;
+			// an arrival or a departure may let the car at the front of the queue in
+			if (!entryScheduled && !incomingQueue.isEmpty()) {
+				events.enqueue(clock, Event.ENTRY, null);
+				entryScheduled = true;
+			}
+		}
+
+		clock = Math.max(clock, end);
+
+		if (observing)
+			observeState();
+	}
+
+	private void startDetection() {
+		occupancyDetector = new SteadyStateDetector(clock, lot.getOccupancy());
+		queueDetector = new SteadyStateDetector(clock, incomingQueue.size());
+		observing = true;
+	}
+
+	/**
+	 * Tells the steady-state detectors and the metrics the state of the
+	 * simulation from clock on
+	 */
+	private void observeState() {
+		if (occupancyDetector != null) {
+			occupancyDetector.observe(clock, lot.getOccupancy());
+			queueDetector.observe(clock, incomingQueue.size());
+		}
+
+		if (metrics != null)
+			metrics.observe(clock, lot.getOccupancy(), incomingQueue.size());
+	}
+
+	/**
+	 * Schedules the first arrival strictly after a given time
+	 * 
+	 * @param time is the time of the previous arrival check
+	 * @param end  is the end of the simulated period
+	 */
+	private void scheduleArrival(int time, int end) {
+		int next = arrivalStream != null ? arrivalStream.nextArrival(time, end)
+				: arrivalProfile.nextArrival(random, time, end);
+
+		if (next < end)
+			events.enqueue(next, Event.ARRIVAL, null);
+	}
+
+	/**
+	 * @param random is the source of randomness
+	 * @return the number of seconds that a car stays in the lot, drawn from
+	 *         STAY_CDF
+	 */
+	static int drawStay(RandomSource random) {
+		return RandomGenerator.sample(random, STAY_CDF);
+	}
+
+	/**
+	 * @param random  is the source of randomness
+	 * @param elapsed is the number of seconds that a car has been parked, at
+	 *                least 1
+	 * @return the whole stay of the car, drawn from STAY_CDF given that it is at
+	 *         least elapsed seconds; a car parked for longer than
+	 *         MAX_PARKING_DURATION leaves at once
+	 */
+	static int drawRemainingStay(RandomSource random, int elapsed) {
+		if (elapsed >= STAY_CDF.length)
+			return elapsed;
+
+		return RandomGenerator.sample(random, STAY_CDF, elapsed);
+	}
+
+	/**
+	 * @return a copy of the cumulative distribution of a car's stay (STAY_CDF);
+	 *         entry d is the probability that a car has left within d seconds of
+	 *         parking
+	 */
+	static double[] getStayCdf() {
+		return STAY_CDF.clone();
+	}
+
+	/**
+	 * @return the cumulative distribution of a car's stay implied by checking
+	 *         departurePDF once per second, starting one second after the car
+	 *         parks; a car still parked after MAX_PARKING_DURATION seconds leaves
+	 *         at the next check
+	 */
+	private static double[] computeStayCdf() {
+		double[] cdf = new double[MAX_PARKING_DURATION + 2];
+		double stillParked = 1.0d;
+
+		for (int duration = 1; duration <= MAX_PARKING_DURATION; duration++) {
+			stillParked *= 1.0d - departurePDF.pdf(duration).toDouble();
+			cdf[duration] = 1.0d - stillParked;
 		}
+
+		cdf[MAX_PARKING_DURATION + 1] = 1.0d;
+		return cdf;
+	}
+
+	/**
+	 * @return departurePDF.pdfThreshold(d) for d = 0 to MAX_PARKING_DURATION, as
+	 *         unsigned 32-bit values (a certain departure maps to 2^32 - 1)
+	 */
+	private static int[] computeDepartureThresholds() {
+		int[] thresholds = new int[MAX_PARKING_DURATION + 1];
+
+		for (int duration = 0; duration <= MAX_PARKING_DURATION; duration++)
+			thresholds[duration] = (int) Math.min(departurePDF.pdfThreshold(duration), 0xFFFFFFFFL);
+
+		return thresholds;
 	}
 
 	public int getIncomingQueueSize() {
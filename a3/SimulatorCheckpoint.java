@@ -0,0 +1,233 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * The state of a Simulator between two calls to simulate(), in a compact binary
+ * form: the clock, the capacity of the lot, the cars parked in the lot (with
+ * the time at which each one parked) and the cars waiting in the incoming and
+ * outgoing queues (with the time at which each one joined its queue).
+ *
+ * A checkpoint holds no random state and no pending events. A simulator that
+ * restores it goes on with its own random source, so that several simulators
+ * can branch from the same checkpoint with different streams; the event-driven
+ * engine draws the remaining stay of every parked car when it resumes (see
+ * Simulator.restore()). Checkpoints are immutable, so one checkpoint can be
+ * restored by any number of threads at once.
+ *
+ * The binary form starts with four ints: MAGIC, VERSION, the clock and the
+ * capacity of the lot. The parked cars, the incoming queue and the outgoing
+ * queue follow, each as a count followed by one record per car, in order: the
+ * age of the car's timestamp (the clock minus the timestamp) and its plate
+ * code. Counts and records are unsigned LEB128 varints, so that a car takes
+ * about 5 bytes.
+ */
+public class SimulatorCheckpoint {
+
+	/**
+	 * First int of every checkpoint ("PKCP")
+	 */
+	public static final int MAGIC = 0x504B4350;
+
+	public static final int VERSION = 1;
+
+	private static final int HEADER_BYTES = 16;
+
+	/**
+	 * Largest size of a varint in bytes
+	 */
+	private static final int MAX_VARINT_BYTES = 5;
+
+	private final byte[] bytes;
+
+	private final int clock;
+	private final int capacity;
+
+	private SimulatorCheckpoint(byte[] bytes) {
+		var buffer = ByteBuffer.wrap(bytes);
+
+		try {
+			if (buffer.getInt() != MAGIC)
+				throw new IllegalArgumentException("Not a simulator checkpoint");
+
+			int version = buffer.getInt();
+			if (version != VERSION)
+				throw new IllegalArgumentException("Unsupported checkpoint version " + version);
+
+			this.clock = buffer.getInt();
+			this.capacity = buffer.getInt();
+		} catch (BufferUnderflowException e) {
+			throw new IllegalArgumentException("Truncated checkpoint header");
+		}
+
+		if (clock < 0 || capacity < 0)
+			throw new IllegalArgumentException("Corrupt checkpoint header");
+
+		this.bytes = bytes;
+	}
+
+	/**
+	 * Captures the state of a simulator. The queues are left as they are.
+	 *
+	 * @param clock    is the clock of the simulator
+	 * @param lot      is the lot of the simulator
+	 * @param incoming is the incoming queue of the simulator
+	 * @param outgoing is the outgoing queue of the simulator
+	 * @return the checkpoint
+	 */
+	static SimulatorCheckpoint capture(int clock, ParkingLot lot, Queue<Spot> incoming, Queue<Spot> outgoing) {
+		int cars = lot.getOccupancy() + incoming.size() + outgoing.size();
+		var buffer = ByteBuffer.allocate(HEADER_BYTES + (3 + 2 * cars) * MAX_VARINT_BYTES);
+
+		buffer.putInt(MAGIC).putInt(VERSION).putInt(clock).putInt(lot.getCapacity());
+
+		putVarint(buffer, lot.getOccupancy());
+		for (int i = 0; i < lot.getOccupancy(); i++)
+			putCar(buffer, clock, lot.getSpotAt(i));
+
+		putQueue(buffer, clock, incoming);
+		putQueue(buffer, clock, outgoing);
+
+		return new SimulatorCheckpoint(Arrays.copyOf(buffer.array(), buffer.position()));
+	}
+
+	/**
+	 * Reads a checkpoint written by write()
+	 *
+	 * @param in is the stream to read the checkpoint from; it is read to its end
+	 * @return the checkpoint
+	 * @throws IOException if the stream cannot be read
+	 */
+	public static SimulatorCheckpoint read(InputStream in) throws IOException {
+		return new SimulatorCheckpoint(in.readAllBytes());
+	}
+
+	/**
+	 * @param out is the stream to write the checkpoint to
+	 * @throws IOException if the stream cannot be written
+	 */
+	public void write(OutputStream out) throws IOException {
+		out.write(bytes);
+	}
+
+	/**
+	 * @return the clock of the simulator when the checkpoint was taken
+	 */
+	public int getClock() {
+		return clock;
+	}
+
+	/**
+	 * @return the capacity of the lot when the checkpoint was taken
+	 */
+	public int getCapacity() {
+		return capacity;
+	}
+
+	/**
+	 * @return the size of the checkpoint in bytes
+	 */
+	public int size() {
+		return bytes.length;
+	}
+
+	/**
+	 * Puts the cars of the checkpoint back into an empty lot and empty queues,
+	 * with spots taken from a pool, and sets the capacity of the lot
+	 *
+	 * @param lot      is the lot to fill
+	 * @param incoming is the incoming queue to fill
+	 * @param outgoing is the outgoing queue to fill
+	 * @param spotPool provides the spots of the cars
+	 */
+	void restore(ParkingLot lot, Queue<Spot> incoming, Queue<Spot> outgoing, SpotPool spotPool) {
+		var buffer = ByteBuffer.wrap(bytes);
+		buffer.position(HEADER_BYTES);
+
+		lot.setCapacity(capacity);
+
+		try {
+			int parked = getVarint(buffer);
+			if (parked > capacity)
+				throw new IllegalArgumentException("Checkpoint has more parked cars than spots");
+
+			for (int i = 0; i < parked; i++) {
+				var spot = getCar(buffer, spotPool);
+				lot.park(spot, spot.getTimestamp());
+			}
+
+			for (int queue = 0; queue < 2; queue++) {
+				int waiting = getVarint(buffer);
+
+				for (int i = 0; i < waiting; i++)
+					(queue == 0 ? incoming : outgoing).enqueue(getCar(buffer, spotPool));
+			}
+		} catch (BufferUnderflowException e) {
+			throw new IllegalArgumentException("Truncated checkpoint");
+		}
+	}
+
+	public String toString() {
+		return "Checkpoint at " + clock + " s, capacity " + capacity + " (" + bytes.length + " bytes)";
+	}
+
+	private static void putQueue(ByteBuffer buffer, int clock, Queue<Spot> queue) {
+		int size = queue.size();
+		putVarint(buffer, size);
+
+		// a full turn of the queue leaves it as it was
+		for (int i = 0; i < size; i++) {
+			var spot = queue.dequeue();
+			putCar(buffer, clock, spot);
+			queue.enqueue(spot);
+		}
+	}
+
+	private static void putCar(ByteBuffer buffer, int clock, Spot spot) {
+		int plateCode = spot.getCar().getPlateCode();
+		if (plateCode < 0)
+			throw new IllegalStateException("Car " + spot.getCar().getPlateNum() + " has no plate code");
+
+		if (spot.getTimestamp() > clock)
+			throw new IllegalStateException("Timestamp " + spot.getTimestamp() + " is ahead of the clock");
+
+		putVarint(buffer, clock - spot.getTimestamp());
+		putVarint(buffer, plateCode);
+	}
+
+	private Spot getCar(ByteBuffer buffer, SpotPool spotPool) {
+		int timestamp = clock - getVarint(buffer);
+		int plateCode = getVarint(buffer);
+
+		if (timestamp < 0 || plateCode < 0)
+			throw new IllegalArgumentException("Corrupt checkpoint record");
+
+		return spotPool.acquire(plateCode, timestamp);
+	}
+
+	private static void putVarint(ByteBuffer buffer, int value) {
+		while ((value & ~0x7F) != 0) {
+			buffer.put((byte) ((value & 0x7F) | 0x80));
+			value >>>= 7;
+		}
+
+		buffer.put((byte) value);
+	}
+
+	private static int getVarint(ByteBuffer buffer) {
+		int value = 0;
+
+		for (int shift = 0; shift < 35; shift += 7) {
+			byte b = buffer.get();
+			value |= (b & 0x7F) << shift;
+
+			if (b >= 0)
+				return value;
+		}
+
+		throw new IllegalArgumentException("Corrupt checkpoint varint");
+	}
+}
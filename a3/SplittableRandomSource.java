@@ -0,0 +1,48 @@
+import java.util.SplittableRandom;
+
+/**
+ * A random source backed by java.util.SplittableRandom (SplitMix64): fast,
+ * unsynchronized, and designed to be split into independent streams.
+ */
+public class SplittableRandomSource implements RandomSource {
+
+	private SplittableRandom random;
+
+	/**
+	 * Constructs a source with an unpredictable seed
+	 */
+	public SplittableRandomSource() {
+		this(new SplittableRandom());
+	}
+
+	/**
+	 * @param seed is the seed; sources with the same seed produce the same stream
+	 */
+	public SplittableRandomSource(long seed) {
+		this(new SplittableRandom(seed));
+	}
+
+	private SplittableRandomSource(SplittableRandom random) {
+		this.random = random;
+	}
+
+	public int nextInt() {
+		return random.nextInt();
+	}
+
+	public int nextInt(int bound) {
+		return random.nextInt(bound);
+	}
+
+	public long nextLong() {
+		return random.nextLong();
+	}
+
+	public double nextDouble() {
+		return random.nextDouble();
+	}
+
+	public RandomSource split() {
+		return new SplittableRandomSource(random.split());
+	}
+}
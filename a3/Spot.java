@@ -2,6 +2,11 @@ public class Spot {
 	private Car car;
 	private int timestamp;
 
+	/**
+	 * Position of the car in the ParkedCars of the lot it is parked in, or -1
+	 */
+	private int position = -1;
+
 	public Car getCar() {
 		return car;
 	}
@@ -18,6 +23,18 @@ public class Spot {
 		this.timestamp = timestamp;
 	}
 
+	/**
+	 * @return the position of the car in the ParkedCars that holds it, or -1 if
+	 *         it is not parked; maintained by ParkedCars
+	 */
+	int getPosition() {
+		return position;
+	}
+
+	void setPosition(int position) {
+		this.position = position;
+	}
+
 	public Spot(Car car, int timestamp) {
 		this.car = car;
 		this.timestamp = timestamp;
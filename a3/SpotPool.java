@@ -0,0 +1,64 @@
+/**
+ * A pool of spots, each with its own car, that lets a simulation recycle the
+ * spots (and cars) of departed cars for new arrivals instead of allocating
+ * them. Once the pool has grown to the largest number of cars present at the
+ * same time, acquire() no longer allocates.
+ */
+public class SpotPool {
+
+	private static final int INITIAL_CAPACITY = 16;
+
+	private Spot[] free;
+	private int numFree;
+
+	public SpotPool() {
+		free = new Spot[INITIAL_CAPACITY];
+		numFree = 0;
+	}
+
+	/**
+	 * @param plateCode is the packed plate number of the car (see
+	 *                  RandomGenerator.encodePlate())
+	 * @param timestamp is the (simulated) time stored in the spot
+	 * @return a spot holding a car with the given plate, recycled if possible
+	 */
+	public Spot acquire(int plateCode, int timestamp) {
+
+		if (numFree == 0)
+			return new Spot(new Car(plateCode), timestamp);
+
+		Spot spot = free[--numFree];
+		free[numFree] = null;
+
+		spot.getCar().setPlateCode(plateCode);
+		spot.setTimestamp(timestamp);
+		return spot;
+	}
+
+	/**
+	 * Returns a spot to the pool. The spot (and its car) must no longer be used by
+	 * the caller, since a later acquire() hands it out again.
+	 * 
+	 * @param spot is the spot to recycle
+	 */
+	public void release(Spot spot) {
+
+		if (spot == null)
+			throw new NullPointerException("Spot object cannot be null.");
+
+		if (numFree == free.length) {
+			Spot[] larger = new Spot[2 * free.length];
+			System.arraycopy(free, 0, larger, 0, numFree);
+			free = larger;
+		}
+
+		free[numFree++] = spot;
+	}
+
+	/**
+	 * @return the number of spots available for reuse
+	 */
+	public int size() {
+		return numFree;
+	}
+}
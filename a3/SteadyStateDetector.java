@@ -0,0 +1,210 @@
+/**
+ * Detects when a quantity of a simulation that starts from an empty lot (e.g.,
+ * the occupancy of the lot or the length of its queue) has reached steady
+ * state, with the MSER rule: the end of the warm-up is the truncation point d
+ * that minimizes the squared standard error of the mean of what is left,
+ * i.e., the sum of the squared deviations of the batch means after d from
+ * their mean, divided by the square of their number. A truncation point in
+ * the second half of the run is inconclusive: the run is too short, or the
+ * quantity keeps drifting, which pushes the minimum towards the end.
+ *
+ * The quantity is piecewise constant in (simulated) time, and is averaged over
+ * batches of equal duration, starting at MIN_BATCH_SECONDS seconds. The
+ * detector keeps at most MAX_BATCHES batch means: when they are all taken, each
+ * pair of neighbouring batches is merged into one of twice the duration. It
+ * therefore uses the same (small) memory however long the run, and
+ * getTruncationPoint() takes time proportional to MAX_BATCHES.
+ *
+ * Like any truncation rule, MSER needs a run that is long compared with the
+ * time the quantity takes to forget its start: over a short run, the queue of
+ * a lot that is slightly too small grows slowly compared with its random
+ * ups and downs, and can pass for steady.
+ */
+public class SteadyStateDetector {
+
+	/**
+	 * Duration of a batch before any merges, in (simulated) seconds; MSER with
+	 * batches of 5 observations is the usual MSER-5
+	 */
+	public static final int MIN_BATCH_SECONDS = 5;
+
+	/**
+	 * Largest number of batch means kept; even
+	 */
+	public static final int MAX_BATCHES = 256;
+
+	/**
+	 * Smallest number of batches for which a truncation point is given
+	 */
+	public static final int MIN_BATCHES = 20;
+
+	private double[] batchMeans;
+	private int numBatches;
+	private int batchSeconds;
+
+	/**
+	 * Time at which the first batch starts
+	 */
+	private int start;
+
+	/**
+	 * Time up to which the quantity has been accumulated, and the integral of
+	 * the quantity over the current (partial) batch
+	 */
+	private int time;
+	private double partialSum;
+
+	/**
+	 * Value of the quantity since time
+	 */
+	private double value;
+
+	/**
+	 * @param start is the (simulated) time at which the run starts
+	 * @param value is the value of the quantity at the start
+	 */
+	public SteadyStateDetector(int start, double value) {
+		if (start < 0)
+			throw new IllegalArgumentException("Start must be non-negative.");
+
+		this.batchMeans = new double[MAX_BATCHES];
+		this.batchSeconds = MIN_BATCH_SECONDS;
+		this.start = start;
+		this.time = start;
+		this.value = value;
+	}
+
+	/**
+	 * Records that the quantity takes a new value at a given time; it had the
+	 * previous value since the previous observation
+	 *
+	 * @param time  is the (simulated) time of the change, not earlier than that
+	 *              of the previous observation
+	 * @param value is the new value of the quantity
+	 */
+	public void observe(int time, double value) {
+		if (time < this.time)
+			throw new IllegalArgumentException("Observations must be made in order of time");
+
+		while (this.time < time) {
+			int batchEnd = start + (numBatches + 1) * batchSeconds;
+			int until = Math.min(time, batchEnd);
+
+			partialSum += this.value * (until - this.time);
+			this.time = until;
+
+			if (until == batchEnd)
+				closeBatch();
+		}
+
+		this.value = value;
+	}
+
+	/**
+	 * @return the (simulated) time at which the steady state starts according to
+	 *         MSER, or -1 if there are too few batches yet or if the truncation
+	 *         point is inconclusive
+	 */
+	public int getTruncationPoint() {
+		int d = truncatedBatches();
+		return d < 0 ? -1 : start + d * batchSeconds;
+	}
+
+	/**
+	 * @return true if a truncation point has been found (see
+	 *         getTruncationPoint())
+	 */
+	public boolean isSteady() {
+		return truncatedBatches() >= 0;
+	}
+
+	/**
+	 * @return the mean of the quantity after the truncation point, or NaN if
+	 *         there is no truncation point
+	 */
+	public double getSteadyMean() {
+		int d = truncatedBatches();
+		if (d < 0)
+			return Double.NaN;
+
+		double sum = 0.0d;
+		for (int i = d; i < numBatches; i++)
+			sum += batchMeans[i];
+
+		return sum / (numBatches - d);
+	}
+
+	/**
+	 * @return the number of complete batches
+	 */
+	public int getNumBatches() {
+		return numBatches;
+	}
+
+	/**
+	 * @return the current duration of a batch in (simulated) seconds
+	 */
+	public int getBatchSeconds() {
+		return batchSeconds;
+	}
+
+	public String toString() {
+		int truncationPoint = getTruncationPoint();
+
+		return (truncationPoint < 0 ? "no steady state yet" : "steady from " + truncationPoint + " s") + " ("
+				+ numBatches + " batches of " + batchSeconds + " s)";
+	}
+
+	private void closeBatch() {
+		batchMeans[numBatches++] = partialSum / batchSeconds;
+		partialSum = 0.0d;
+
+		if (numBatches == MAX_BATCHES) {
+			for (int i = 0; i < MAX_BATCHES / 2; i++)
+				batchMeans[i] = (batchMeans[2 * i] + batchMeans[2 * i + 1]) / 2;
+
+			numBatches = MAX_BATCHES / 2;
+			batchSeconds *= 2;
+		}
+	}
+
+	/**
+	 * @return the number of batches that MSER truncates, or -1 if there are
+	 *         fewer than MIN_BATCHES batches or the minimum is past the first
+	 *         half of the batches
+	 */
+	private int truncatedBatches() {
+		int n = numBatches;
+		if (n < MIN_BATCHES)
+			return -1;
+
+		// deviations from the last batch mean, so that the sums of squares do not
+		// lose the variance to the square of a large mean
+		double shift = batchMeans[n - 1];
+		double sum = 0.0d;
+		double sumOfSquares = 0.0d;
+
+		int best = n;
+		double bestStatistic = Double.POSITIVE_INFINITY;
+
+		// suffix sums, from the last batch back to the first
+		for (int d = n - 1; d >= 0; d--) {
+			double y = batchMeans[d] - shift;
+			sum += y;
+			sumOfSquares += y * y;
+
+			// the statistic of a short tail is too noisy to compare
+			if (d > n - n / 4)
+				continue;
+
+			int m = n - d;
+			double statistic = (sumOfSquares - sum * sum / m) / ((double) m * m);
+			if (statistic <= bestStatistic) {
+				bestStatistic = statistic;
+				best = d;
+			}
+		}
+
+		return best <= n / 2 ? best : -1;
+	}
+}
@@ -0,0 +1,198 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Writes arrival traces: binary files holding one or more days (segments) of
+ * arrivals, with the plate and the stay of every arriving car, that
+ * MappedTrace replays.
+ * 
+ * A trace starts with a header of four ints: MAGIC, VERSION, the length of a
+ * segment in (simulated) seconds, and the number of segments. Each segment
+ * starts with the number of cars (an int) and the length of its records in
+ * bytes (a long), followed by one record per car, in order of arrival: the
+ * time since the previous arrival (or since time -1 for the first one), the
+ * plate code and the stay, each as an unsigned LEB128 varint. A record of a
+ * day takes about 8 bytes.
+ * 
+ * Records are written through a fixed-size buffer, so traces of any length
+ * can be written without holding them in memory.
+ */
+public class TraceWriter implements AutoCloseable {
+
+	/**
+	 * First int of every trace ("PKTR")
+	 */
+	public static final int MAGIC = 0x504B5452;
+
+	public static final int VERSION = 1;
+
+	/**
+	 * Sizes of the trace and segment headers in bytes
+	 */
+	static final int HEADER_BYTES = 16;
+	static final int SEGMENT_HEADER_BYTES = 12;
+
+	/**
+	 * Largest size of a record in bytes (three varints of at most 5 bytes)
+	 */
+	static final int MAX_RECORD_BYTES = 15;
+
+	private static final int BUFFER_BYTES = 1 << 16;
+
+	private FileChannel channel;
+	private ByteBuffer buffer;
+
+	private int segments;
+
+	/**
+	 * File position of the header of the current segment, or -1 if no segment is
+	 * open
+	 */
+	private long segmentStart;
+	private int segmentCars;
+	private int previousTime;
+
+	/**
+	 * Creates (or truncates) a trace file
+	 * 
+	 * @param file  is the trace file
+	 * @param steps is the length of every segment in (simulated) seconds
+	 * @throws IOException if the file cannot be written
+	 */
+	public TraceWriter(Path file, int steps) throws IOException {
+
+		if (steps < 0)
+			throw new IllegalArgumentException("Steps should be a non negative integer");
+
+		this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING);
+		this.buffer = ByteBuffer.allocate(BUFFER_BYTES);
+		this.segmentStart = -1;
+
+		buffer.putInt(MAGIC).putInt(VERSION).putInt(steps).putInt(0);
+	}
+
+	/**
+	 * Writes a trace with one segment per stream, each holding the arrivals of the
+	 * stream before steps. The streams are drained in order.
+	 * 
+	 * @param file    is the trace file
+	 * @param steps   is the length of every segment in (simulated) seconds
+	 * @param streams are the streams to record
+	 * @throws IOException if the file cannot be written
+	 */
+	public static void write(Path file, int steps, ArrivalStream... streams) throws IOException {
+		try (var writer = new TraceWriter(file, steps)) {
+			for (var stream : streams) {
+				writer.beginSegment();
+
+				for (int time = stream.nextArrival(-1, steps); time < steps; time = stream.nextArrival(time, steps))
+					writer.append(time, stream.nextPlateCode(), stream.nextStay());
+
+				writer.endSegment();
+			}
+		}
+	}
+
+	/**
+	 * Starts a new segment
+	 * 
+	 * @throws IOException if the file cannot be written
+	 */
+	public void beginSegment() throws IOException {
+		if (segmentStart >= 0)
+			throw new IllegalStateException("The previous segment has not ended");
+
+		flush();
+
+		segmentStart = channel.position();
+		segmentCars = 0;
+		previousTime = -1;
+
+		buffer.putInt(0).putLong(0L); // filled in by endSegment()
+	}
+
+	/**
+	 * Appends a car to the current segment
+	 * 
+	 * @param time      is the arrival time, later than that of the previous car
+	 * @param plateCode is the plate code of the car
+	 * @param stay      is the stay of the car in (simulated) seconds
+	 * @throws IOException if the file cannot be written
+	 */
+	public void append(int time, int plateCode, int stay) throws IOException {
+		if (segmentStart < 0)
+			throw new IllegalStateException("No segment has begun");
+
+		if (time <= previousTime)
+			throw new IllegalArgumentException("Arrivals must be appended in order of time");
+
+		if (plateCode < 0 || stay < 0)
+			throw new IllegalArgumentException("Plate codes and stays must be non negative");
+
+		if (buffer.remaining() < MAX_RECORD_BYTES)
+			flush();
+
+		putVarint(time - previousTime);
+		putVarint(plateCode);
+		putVarint(stay);
+
+		previousTime = time;
+		segmentCars++;
+	}
+
+	/**
+	 * Ends the current segment
+	 * 
+	 * @throws IOException if the file cannot be written
+	 */
+	public void endSegment() throws IOException {
+		if (segmentStart < 0)
+			throw new IllegalStateException("No segment has begun");
+
+		flush();
+
+		long recordBytes = channel.position() - segmentStart - SEGMENT_HEADER_BYTES;
+		channel.write(ByteBuffer.allocate(SEGMENT_HEADER_BYTES).putInt(segmentCars).putLong(recordBytes).flip(),
+				segmentStart);
+
+		segments++;
+		segmentStart = -1;
+	}
+
+	/**
+	 * Ends the current segment, if any, and completes the header of the trace
+	 */
+	public void close() throws IOException {
+		try {
+			if (segmentStart >= 0)
+				endSegment();
+
+			flush();
+			channel.write(ByteBuffer.allocate(4).putInt(segments).flip(), HEADER_BYTES - 4);
+		} finally {
+			channel.close();
+		}
+	}
+
+	private void putVarint(int value) {
+		while ((value & ~0x7F) != 0) {
+			buffer.put((byte) ((value & 0x7F) | 0x80));
+			value >>>= 7;
+		}
+
+		buffer.put((byte) value);
+	}
+
+	private void flush() throws IOException {
+		buffer.flip();
+
+		while (buffer.hasRemaining())
+			channel.write(buffer);
+
+		buffer.clear();
+	}
+}
@@ -1,3 +1,6 @@
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
 /**
  * This class provides an implementation of a triangular probabilistic
  * distribution. A simple mathematical explanation of this probability
@@ -15,6 +18,16 @@ public class TriangularDistribution {
 	 */
 	int a, c, b;
 
+	/**
+	 * Tables of pdfThreshold() values, keyed by "a,c,b"
+	 */
+	private static final Map<String, long[]> THRESHOLD_TABLES = new ConcurrentHashMap<String, long[]>();
+
+	/**
+	 * The table of pdfThreshold() values for this distribution, once looked up
+	 */
+	private volatile long[] thresholds;
+
 	/**
 	 * Constructor for TriangularDistribution. You need to verify that the following
 	 * condition holds: a >= 0 AND a < c AND c < b
@@ -50,4 +63,93 @@ public class TriangularDistribution {
 
 		return Rational.zero;
 	}
+
+	/**
+	 * Same as pdf(), as a fixed-point event threshold, i.e., pdf(x) * 2^32 (see
+	 * RandomGenerator.threshold()). The values are looked up in a table that is
+	 * computed once per (a, c, b) and shared by all instances and threads.
+	 * 
+	 * @param x is a point on the x axis
+	 * @return the probability density at point x, scaled by 2^32
+	 */
+	public long pdfThreshold(int x) {
+		if (x < a || x > b)
+			return 0;
+
+		return thresholdTable()[x - a];
+	}
+
+	/**
+	 * @return the table of pdfThreshold() values over a..b for the parameters of
+	 *         this distribution; the table is never modified once built
+	 */
+	private long[] thresholdTable() {
+		long[] table = thresholds;
+
+		if (table == null)
+			thresholds = table = THRESHOLD_TABLES.computeIfAbsent(a + "," + c + "," + b,
+					key -> computeThresholdTable());
+
+		return table;
+	}
+
+	private long[] computeThresholdTable() {
+		long[] table = new long[b - a + 1];
+
+		for (int x = a; x <= b; x++) {
+			if (x <= c)
+				table[x - a] = ((2L * (x - a)) << 32) / ((long) (b - a) * (c - a));
+			else
+				table[x - a] = ((2L * (b - x)) << 32) / ((long) (b - a) * (b - c));
+		}
+
+		return table;
+	}
+
+	/**
+	 * @param x is a point on the x axis
+	 * @return the probability that a value drawn from the distribution is at most
+	 *         x
+	 */
+	public double cdf(int x) {
+		if (x <= a)
+			return 0.0d;
+
+		if (x <= c)
+			return (double) ((long) (x - a) * (x - a)) / ((long) (b - a) * (c - a));
+
+		if (x < b)
+			return 1.0d - (double) ((long) (b - x) * (b - x)) / ((long) (b - a) * (b - c));
+
+		return 1.0d;
+	}
+
+	/**
+	 * Draws a value from the distribution by inverting cdf() in closed form. Used
+	 * to draw, for instance, the whole parking duration of a car at once.
+	 * 
+	 * @param u is a uniformly distributed random number in [0, 1]
+	 * @return the smallest integer x such that cdf(x) >= u
+	 */
+	public int sample(double u) {
+		if (u < 0.0d || u > 1.0d)
+			throw new IllegalArgumentException("u must be in [0, 1]");
+
+		double x;
+		if (u * (b - a) < c - a)
+			x = a + Math.sqrt(u * (b - a) * (c - a));
+		else
+			x = b - Math.sqrt((1.0d - u) * (b - a) * (b - c));
+
+		int sample = Math.min(Math.max((int) Math.ceil(x), a), b);
+
+		// guard against rounding errors in sqrt(), which can put ceil(x) one off
+		// either way
+		if (sample > a && cdf(sample - 1) >= u)
+			sample--;
+		else if (sample < b && cdf(sample) < u)
+			sample++;
+
+		return sample;
+	}
 }
\ No newline at end of file
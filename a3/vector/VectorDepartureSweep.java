@@ -0,0 +1,83 @@
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * A departure sweep that handles as many cars at a time as the CPU has int
+ * lanes (8 with AVX2, 16 with AVX-512): parking durations, threshold lookups
+ * (a gather from the threshold table) and comparisons with the random draws
+ * are all done in vector registers, and so is the hashing that derives the
+ * random number of each car from the key of the sweep. The decisions are
+ * exactly those of ScalarDepartureSweep.
+ *
+ * This class uses the incubating Vector API: it has to be compiled and run
+ * with --add-modules jdk.incubator.vector (see README). Simulator falls back
+ * to ScalarDepartureSweep when it cannot be loaded.
+ */
+public class VectorDepartureSweep implements DepartureSweep {
+
+	private static final VectorSpecies<Integer> SPECIES = IntVector.SPECIES_PREFERRED;
+
+	private int[] thresholds;
+	private int maxDuration;
+
+	/**
+	 * Lane indices 0, 1, ..., SPECIES.length() - 1
+	 */
+	private static final IntVector LANES = IntVector.zero(SPECIES).addIndex(1);
+
+	// clamped durations, the indices of the threshold gather; grown as needed
+	private int[] durations;
+
+	/**
+	 * @param thresholds holds, at index d, the departure threshold of a car that
+	 *                   has been parked for d seconds
+	 */
+	public VectorDepartureSweep(int[] thresholds) {
+		if (thresholds == null || thresholds.length == 0)
+			throw new IllegalArgumentException("Thresholds cannot be empty");
+
+		this.thresholds = thresholds;
+		this.maxDuration = thresholds.length - 1;
+		this.durations = new int[0];
+	}
+
+	public void markDepartures(int[] timestamps, int count, int clock, RandomSource random, boolean[] leaves) {
+		if (durations.length < count)
+			durations = new int[2 * count];
+
+		int key = random.nextInt();
+
+		var now = IntVector.broadcast(SPECIES, clock);
+		int bound = SPECIES.loopBound(count);
+		int k = 0;
+
+		for (; k < bound; k += SPECIES.length()) {
+			var duration = now.sub(IntVector.fromArray(SPECIES, timestamps, k));
+			VectorMask<Integer> expired = duration.compare(VectorOperators.GT, maxDuration);
+
+			// expired cars leave anyway; clamping keeps their lookup in the table
+			duration.max(0).min(maxDuration).intoArray(durations, k);
+			var threshold = IntVector.fromArray(SPECIES, thresholds, 0, durations, k);
+
+			// ScalarDepartureSweep.draw(key, k + lane), in all lanes at once
+			var x = LANES.add(k).mul(0x9E3779B9).lanewise(VectorOperators.XOR, key);
+			x = x.lanewise(VectorOperators.XOR, x.lanewise(VectorOperators.LSHR, 16)).mul(0x7FEB352D);
+			x = x.lanewise(VectorOperators.XOR, x.lanewise(VectorOperators.LSHR, 15)).mul(0x846CA68B);
+			x = x.lanewise(VectorOperators.XOR, x.lanewise(VectorOperators.LSHR, 16));
+
+			x.compare(VectorOperators.UNSIGNED_LT, threshold).or(expired).intoArray(leaves, k);
+		}
+
+		for (; k < count; k++) {
+			int duration = clock - timestamps[k];
+			leaves[k] = duration > maxDuration
+					|| Integer.compareUnsigned(ScalarDepartureSweep.draw(key, k), thresholds[duration]) < 0;
+		}
+	}
+
+	public String toString() {
+		return "Vector API, " + SPECIES.length() + " int lanes";
+	}
+}
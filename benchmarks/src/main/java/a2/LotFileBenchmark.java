@@ -0,0 +1,55 @@
+package a2;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Loading a square lot from its design file, with and without building the
+ * lot (the free spot index) around the parsed design.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LotFileBenchmark {
+
+	@Param({ "100", "1000" })
+	int side;
+
+	File file;
+
+	@Setup
+	public void setUp() throws Exception {
+		file = Lots.mixedLotFile(side, side);
+	}
+
+	@TearDown
+	public void tearDown() {
+		file.delete();
+	}
+
+	@Benchmark
+	public LotFileParser parse() throws Exception {
+		return LotFileParser.parse(file.getPath());
+	}
+
+	@Benchmark
+	public ParkingLot load() throws Exception {
+		return new ParkingLot(file.getPath());
+	}
+}
@@ -0,0 +1,56 @@
+package a2;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Random;
+
+/**
+ * Creates lot design files for the a2 benchmarks, since the a2 ParkingLot can
+ * only be loaded from a file.
+ */
+class Lots {
+
+	/**
+	 * @param numRows        is the number of rows of the lot
+	 * @param numSpotsPerRow is the number of spots per row
+	 * @return a lot with the given dimensions, in which spot types are mixed in
+	 *         roughly the proportions of the car types that RandomGenerator
+	 *         generates
+	 */
+	static ParkingLot mixedLot(int numRows, int numSpotsPerRow) throws Exception {
+		File file = mixedLotFile(numRows, numSpotsPerRow);
+
+		try {
+			return new ParkingLot(file.getPath());
+		} finally {
+			file.delete();
+		}
+	}
+
+	/**
+	 * @param numRows        is the number of rows of the lot
+	 * @param numSpotsPerRow is the number of spots per row
+	 * @return a temporary design file of a lot like those of mixedLot(), which
+	 *         the caller deletes
+	 */
+	static File mixedLotFile(int numRows, int numSpotsPerRow) throws IOException {
+		File file = File.createTempFile("lot", ".inf");
+		file.deleteOnExit();
+
+		Random random = new Random(42);
+
+		try (PrintWriter writer = new PrintWriter(file)) {
+			for (int i = 0; i < numRows; i++) {
+				for (int j = 0; j < numSpotsPerRow; j++) {
+					int number = random.nextInt(100);
+					String label = number < 5 ? "E" : number < 25 ? "S" : number < 35 ? "L" : "R";
+					writer.print(j == 0 ? label : ", " + label);
+				}
+				writer.println();
+			}
+		}
+
+		return file;
+	}
+}
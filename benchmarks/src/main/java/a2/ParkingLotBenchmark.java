@@ -0,0 +1,64 @@
+package a2;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * attemptParking() on a square lot that is full except for its very last spot
+ * (followed by the removal that frees it again), and on a full lot.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ParkingLotBenchmark {
+
+	@Param({ "10", "100", "300" })
+	int side;
+
+	ParkingLot lot;
+	ParkingLot fullLot;
+	Car car = new Car(CarType.ELECTRIC, "ABC");
+	int lastRow;
+	int lastSpot;
+
+	@Setup
+	public void setUp() throws Exception {
+		lot = Lots.mixedLot(side, side);
+		fullLot = Lots.mixedLot(side, side);
+
+		while (fullLot.attemptParking(new Car(CarType.ELECTRIC, "P"), 0))
+			;
+
+		while (lot.attemptParking(new Car(CarType.ELECTRIC, "P"), 0))
+			;
+
+		lastRow = side - 1;
+		lastSpot = side - 1;
+		lot.remove(lastRow, lastSpot);
+	}
+
+	@Benchmark
+	public Spot attemptParkingAndRemove() {
+		lot.attemptParking(car, 0);
+		return lot.remove(lastRow, lastSpot);
+	}
+
+	@Benchmark
+	public boolean attemptParkingFullLot() {
+		return fullLot.attemptParking(car, 0);
+	}
+}
@@ -0,0 +1,47 @@
+package a2;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * A full simulated day on a square lot, without event logging.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class SimulatorBenchmark {
+
+	@Param({ "10", "30" })
+	int side;
+
+	@Param({ "30", "300" })
+	int hourlyRate;
+
+	ParkingLot lot;
+
+	@Setup(Level.Invocation)
+	public void setUp() throws Exception {
+		lot = Lots.mixedLot(side, side);
+	}
+
+	@Benchmark
+	public ParkingLot simulateDay() {
+		new Simulator(lot, hourlyRate, Simulator.SIMULATION_DURATION).simulate();
+		return lot;
+	}
+}
@@ -0,0 +1,10 @@
+package a2;
+
+/**
+ * Stand-in for the course-provided StudentInfo class, which is not part of the
+ * repository. The main() methods of the assignment classes call display().
+ */
+public class StudentInfo {
+	public static void display() {
+	}
+}
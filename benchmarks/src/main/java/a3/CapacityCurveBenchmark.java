@@ -0,0 +1,64 @@
+package a3;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * End-of-day queues of a range of lot sizes around the offered load, computed
+ * in one pass over a sample path, against replaying the same path with the
+ * event-driven engine for one lot size in the middle of the range.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class CapacityCurveBenchmark {
+
+	@Param({ "60", "300" })
+	int hourlyRate;
+
+	@Param({ "1", "50", "200" })
+	int lotSizes;
+
+	private SamplePath day;
+	private int minCapacity;
+
+	@Setup
+	public void setUp() {
+		var profile = ArrivalProfile.constant(hourlyRate);
+		day = new SamplePath(profile, Simulator.SIMULATION_DURATION, new SplittableRandomSource(42));
+		minCapacity = Math.max(1, (int) new CapacityEstimate(profile, Simulator.SIMULATION_DURATION, 5.0d)
+				.getOfferedLoad() - lotSizes / 2);
+	}
+
+	@Benchmark
+	public int[] curve() {
+		day.rewind();
+		return CapacityCurve.queueLengths(day, Simulator.SIMULATION_DURATION, minCapacity,
+				minCapacity + lotSizes - 1);
+	}
+
+	@Benchmark
+	public int replay() {
+		var simulator = new Simulator(new ParkingLot(minCapacity + lotSizes / 2), hourlyRate,
+				Simulator.SIMULATION_DURATION);
+		simulator.setEngine(SimulationEngine.EVENT_DRIVEN);
+		day.rewind();
+		simulator.setArrivalStream(day);
+		simulator.simulate();
+		return simulator.getIncomingQueueSize();
+	}
+}
@@ -0,0 +1,58 @@
+package a3;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * List operations on SinglyLinkedList at a given list size. Every benchmark
+ * leaves the size of the list unchanged.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ListBenchmark {
+
+	@Param({ "10", "1000", "10000" })
+	int size;
+
+	List<Integer> list;
+
+	@Setup
+	public void setUp() {
+		list = new SinglyLinkedList<Integer>();
+		for (int i = 0; i < size; i++)
+			list.add(i);
+	}
+
+	@Benchmark
+	public Integer addRemoveLast() {
+		list.add(size);
+		return list.remove(size);
+	}
+
+	@Benchmark
+	public Integer getMiddle() {
+		return list.get(size / 2);
+	}
+
+	@Benchmark
+	public Integer removeMiddleAdd() {
+		Integer removed = list.remove(size / 2);
+		list.add(removed);
+		return removed;
+	}
+}
@@ -0,0 +1,58 @@
+package a3;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * attemptParking() on a lot with one free spot (followed by the removal that
+ * frees it again) and on a full lot.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ParkingLotBenchmark {
+
+	@Param({ "100", "10000" })
+	int capacity;
+
+	ParkingLot lot;
+	ParkingLot fullLot;
+	Car car = new Car("ABC");
+
+	@Setup
+	public void setUp() {
+		lot = new ParkingLot(capacity);
+		fullLot = new ParkingLot(capacity);
+
+		for (int i = 0; i < capacity; i++) {
+			if (i < capacity - 1)
+				lot.park(new Car("P" + i), i);
+			fullLot.park(new Car("P" + i), i);
+		}
+	}
+
+	@Benchmark
+	public Spot attemptParkingAndRemove() {
+		lot.attemptParking(car, 0);
+		return lot.remove(lot.getOccupancy() - 1);
+	}
+
+	@Benchmark
+	public boolean attemptParkingFullLot() {
+		return fullLot.attemptParking(car, 0);
+	}
+}
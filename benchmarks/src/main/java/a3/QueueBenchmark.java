@@ -0,0 +1,60 @@
+package a3;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Queue operations at a given queue length, for the linked and the
+ * array-backed queue. enqueueDequeue keeps the length constant; size() is what
+ * CapacityOptimizer calls on the incoming queue.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class QueueBenchmark {
+
+	@Param({ "10", "1000", "100000" })
+	int length;
+
+	@Param({ "LinkedQueue", "ArrayQueue" })
+	String implementation;
+
+	Queue<Integer> queue;
+
+	@Setup
+	public void setUp() {
+		queue = implementation.equals("ArrayQueue") ? new ArrayQueue<Integer>() : new LinkedQueue<Integer>();
+		for (int i = 0; i < length; i++)
+			queue.enqueue(i);
+	}
+
+	@Benchmark
+	public Integer enqueueDequeue() {
+		queue.enqueue(length);
+		return queue.dequeue();
+	}
+
+	@Benchmark
+	public Integer peek() {
+		return queue.peek();
+	}
+
+	@Benchmark
+	public int size() {
+		return queue.size();
+	}
+}
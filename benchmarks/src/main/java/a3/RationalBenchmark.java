@@ -0,0 +1,55 @@
+package a3;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class RationalBenchmark {
+
+	// the kind of fractions the simulators work with: per-second arrival
+	// probabilities and triangular densities
+	int numerator = 2 * 7919;
+	int denominator = 28800 * 14400;
+
+	Rational x = new Rational(60, 3600);
+	Rational y = new Rational(2 * 7919, 28800 * 14400);
+
+	@Benchmark
+	public Rational construct() {
+		return new Rational(numerator, denominator);
+	}
+
+	@Benchmark
+	public Rational plus() {
+		return x.plus(y);
+	}
+
+	@Benchmark
+	public Rational times() {
+		return x.times(y);
+	}
+
+	@Benchmark
+	public Rational divides() {
+		return x.divides(y);
+	}
+
+	@Benchmark
+	public int compareTo() {
+		return x.compareTo(y);
+	}
+}
@@ -0,0 +1,62 @@
+package a3;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * A full simulated day. Every invocation uses the same seed, so that all
+ * invocations do the same work. The forked JVM gets the Vector API, so that
+ * VECTORIZED uses VectorDepartureSweep. With metrics, the day is also
+ * recorded into a SimulationMetrics, to measure the cost of recording.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+@State(Scope.Thread)
+public class SimulatorBenchmark {
+
+	@Param({ "TIME_STEPPED", "VECTORIZED", "EVENT_DRIVEN" })
+	SimulationEngine engine;
+
+	@Param({ "50", "500", "5000" })
+	int lotSize;
+
+	@Param({ "30", "300" })
+	int hourlyRate;
+
+	@Param({ "false", "true" })
+	boolean metrics;
+
+	private SimulationMetrics recorder;
+
+	@Setup
+	public void setUp() {
+		recorder = new SimulationMetrics(Simulator.SIMULATION_DURATION);
+	}
+
+	@Benchmark
+	public int simulateDay() {
+		var simulator = new Simulator(new ParkingLot(lotSize), hourlyRate, Simulator.SIMULATION_DURATION,
+				new SplittableRandomSource(42));
+		simulator.setEngine(engine);
+		if (metrics) {
+			recorder.reset();
+			simulator.setMetrics(recorder);
+		}
+		simulator.simulate();
+		return simulator.getIncomingQueueSize();
+	}
+}
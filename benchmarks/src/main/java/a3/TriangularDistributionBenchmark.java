@@ -0,0 +1,55 @@
+package a3;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The departure distribution of the simulators, evaluated at a point that
+ * moves through its whole support.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class TriangularDistributionBenchmark {
+
+	TriangularDistribution distribution = Simulator.departurePDF;
+
+	int x;
+
+	private int nextX() {
+		x = (x + 7919) % (Simulator.MAX_PARKING_DURATION + 1);
+		return x;
+	}
+
+	@Benchmark
+	public Rational pdf() {
+		return distribution.pdf(nextX());
+	}
+
+	@Benchmark
+	public long pdfThreshold() {
+		return distribution.pdfThreshold(nextX());
+	}
+
+	@Benchmark
+	public double cdf() {
+		return distribution.cdf(nextX());
+	}
+
+	@Benchmark
+	public int sample() {
+		return distribution.sample((double) nextX() / Simulator.MAX_PARKING_DURATION);
+	}
+}